@@ -0,0 +1,17 @@
+package org.lightchurch.client;
+
+/**
+ * Thrown when a config cannot be read from the server and the client has no last-known-good copy of it.
+ */
+public class ConfigClientException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConfigClientException(String message) {
+        super(message);
+    }
+
+    public ConfigClientException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
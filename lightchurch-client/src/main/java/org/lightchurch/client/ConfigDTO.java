@@ -0,0 +1,80 @@
+package org.lightchurch.client;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A config, as returned by the {@code /configs} endpoints.
+ * <p>
+ * Instances are shared by the near-cache of {@link LightchurchConfigClient}, so they are immutable: the metadata is an
+ * unmodifiable view.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({ "name", "version", "metadata" })
+public final class ConfigDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @JsonProperty("name")
+    private final String name;
+
+    @JsonProperty("version")
+    private final long version;
+
+    @JsonProperty("metadata")
+    private final Map<String, Object> metaData;
+
+    @JsonCreator
+    public ConfigDTO(
+        @JsonProperty("name") String name,
+        @JsonProperty("version") long version,
+        @JsonProperty("metadata") Map<String, Object> metaData
+    ) {
+        this.name = name;
+        this.version = version;
+        this.metaData = metaData == null ? Collections.emptyMap() : Collections.unmodifiableMap(metaData);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the version of the config store at which the config was last written.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, Object> getMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConfigDTO)) {
+            return false;
+        }
+        ConfigDTO configDTO = (ConfigDTO) o;
+        return version == configDTO.version && Objects.equals(name, configDTO.name) && Objects.equals(metaData, configDTO.metaData);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, version);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigDTO{" + "name='" + name + '\'' + ", version=" + version + ", metaData=" + metaData + '}';
+    }
+}
@@ -0,0 +1,17 @@
+package org.lightchurch.client;
+
+import java.util.Optional;
+
+/**
+ * Notified by {@link LightchurchConfigClient} when a config of its near-cache changes on the server.
+ */
+@FunctionalInterface
+public interface ConfigListener {
+    /**
+     * Called from a thread of the client, so implementations must not block.
+     *
+     * @param name   the name of the config.
+     * @param config the new config, empty if it was deleted.
+     */
+    void configChanged(String name, Optional<ConfigDTO> config);
+}
@@ -0,0 +1,716 @@
+package org.lightchurch.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Client of the {@code /configs} endpoints of a lightchurch server, keeping the configs it was asked for in a
+ * near-cache.
+ * <ul>
+ *     <li>Only the first lookup of a config goes to the server, concurrent lookups of a config not cached yet sharing
+ *     that one request. Configs that do not exist are cached too. Past {@link Builder#maxCachedConfigs(int)} configs,
+ *     the cached absences of configs are evicted first, then the configs least recently looked up.</li>
+ *     <li>The cached configs are refreshed in the background with the changes of the config store since the last
+ *     version seen, and optionally kept up to date between refreshes by watching the config store. A client starting
+ *     without snapshot first learns the current version with a {@code HEAD /configs} request, so that it never
+ *     downloads all the configs to sync.</li>
+ *     <li>When a snapshot file is set, the cached configs are persisted to it and loaded from it on start, so that a
+ *     restarting client is served without waiting for the server, and keeps being served its last-known-good configs
+ *     while the server is unavailable.</li>
+ * </ul>
+ * Refreshes are jittered and failed requests retried with a jittered exponential backoff, so that clients do not
+ * stampede a restarting server.
+ */
+public class LightchurchConfigClient implements AutoCloseable {
+
+    private static final System.Logger logger = System.getLogger(LightchurchConfigClient.class.getName());
+
+    private static final long MIN_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final URI baseUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> headers;
+    private final Duration requestTimeout;
+    private final Duration refreshInterval;
+    private final Duration watchTimeout;
+    private final int maxCachedConfigs;
+    private final Path snapshot;
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private final List<ConfigListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong storeVersion = new AtomicLong();
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Completed once the version of the config store to sync from is known, see {@link #synced()}.
+     */
+    private CompletableFuture<Void> seeding;
+
+    private volatile int refreshFailures;
+    private volatile int watchFailures;
+    private volatile boolean closed;
+
+    private LightchurchConfigClient(Builder builder) {
+        String uri = builder.baseUri.toString();
+        this.baseUri = URI.create(uri.endsWith("/") ? uri : uri + "/");
+        this.httpClient = builder.httpClient != null ? builder.httpClient : HttpClient.newHttpClient();
+        this.objectMapper = new ObjectMapper();
+        this.headers = Map.copyOf(builder.headers);
+        this.requestTimeout = builder.requestTimeout;
+        this.refreshInterval = builder.refreshInterval;
+        this.watchTimeout = builder.watchTimeout;
+        this.maxCachedConfigs = builder.maxCachedConfigs;
+        this.snapshot = builder.snapshot;
+        this.scheduler =
+            Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lightchurch-config-client");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        if (snapshot != null) {
+            loadSnapshot();
+        }
+        if (storeVersion.get() > 0) {
+            seeding = CompletableFuture.completedFuture(null);
+        }
+        if (!refreshInterval.isZero()) {
+            schedule(this::refresh, jittered(refreshInterval.toMillis()));
+        }
+        if (builder.watch) {
+            scheduler.execute(this::watch);
+        }
+    }
+
+    /**
+     * @param baseUri the URI of the server, e.g. {@code https://lightchurch.example.com/}.
+     * @return a builder of clients of that server.
+     */
+    public static Builder builder(URI baseUri) {
+        return new Builder(baseUri);
+    }
+
+    /**
+     * Gets a config from the near-cache, or from the server if not cached yet.
+     *
+     * @param name the name of the config.
+     * @return the config, empty if it does not exist.
+     * @throws ConfigClientException if the config is not cached and cannot be read from the server.
+     */
+    public Optional<ConfigDTO> getConfig(String name) {
+        try {
+            return getConfigAsync(name).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof ConfigClientException
+                ? (ConfigClientException) e.getCause()
+                : new ConfigClientException("Cannot get config " + name, e.getCause());
+        }
+    }
+
+    /**
+     * Gets a config as {@link #getConfig(String)} does, without blocking.
+     *
+     * @param name the name of the config.
+     * @return a future of the config, empty if it does not exist, failed with a {@link ConfigClientException} if the
+     * config is not cached and cannot be read from the server.
+     */
+    public CompletableFuture<Optional<ConfigDTO>> getConfigAsync(String name) {
+        Objects.requireNonNull(name, "name");
+        Entry entry = cache.get(name);
+        if (entry != null) {
+            entry.lastRead = System.nanoTime();
+            return CompletableFuture.completedFuture(Optional.ofNullable(entry.config));
+        }
+        return fetch(name, null).thenApply(fetched -> Optional.ofNullable(fetched.config));
+    }
+
+    /**
+     * Registers a listener notified when a cached config changes.
+     *
+     * @param listener the listener.
+     */
+    public void addListener(ConfigListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeListener(ConfigListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops the background refresh and watch, and writes the snapshot, if any.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        if (snapshot != null) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Reads a config from the server, sharing the request with the concurrent reads of the same config.
+     *
+     * @param name   the name of the config.
+     * @param cached the cached entry of the config, revalidated with an {@code If-None-Match} request, if any.
+     */
+    private CompletableFuture<Entry> fetch(String name, Entry cached) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> shared = inFlight.putIfAbsent(name, future);
+        if (shared != null) {
+            return shared;
+        }
+        send(
+            () -> {
+                HttpRequest.Builder request = request("configs/" + URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20"))
+                    .timeout(requestTimeout);
+                if (cached != null && cached.config != null) {
+                    request.header("If-None-Match", "\"" + cached.version + "\"");
+                }
+                return request.build();
+            }
+        )
+            .thenApply(response -> toEntry(name, cached, response))
+            .whenComplete(
+                (entry, error) -> {
+                    if (error == null) {
+                        update(name, entry);
+                    }
+                    inFlight.remove(name, future);
+                    if (error == null) {
+                        future.complete(entry);
+                    } else {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        future.completeExceptionally(
+                            cause instanceof ConfigClientException ? cause : new ConfigClientException("Cannot get config " + name, cause)
+                        );
+                    }
+                }
+            );
+        return future;
+    }
+
+    private Entry toEntry(String name, Entry cached, HttpResponse<byte[]> response) {
+        switch (response.statusCode()) {
+            case 200:
+                ConfigDTO config = readValue(response.body(), ConfigDTO.class);
+                return new Entry(config, config.getVersion());
+            case 304:
+                if (cached == null) {
+                    throw new ConfigClientException("Unexpected 304 (Not Modified) getting config " + name);
+                }
+                return cached;
+            case 404:
+                return new Entry(null, 0);
+            default:
+                throw new ConfigClientException("Unexpected status " + response.statusCode() + " getting config " + name);
+        }
+    }
+
+    /**
+     * Caches a config read from the server, unless a newer version of it was cached in between.
+     */
+    private void update(String name, Entry entry) {
+        Entry[] previous = new Entry[1];
+        Entry current = cache.compute(
+            name,
+            (key, cached) -> {
+                previous[0] = cached;
+                return entry.supersedes(cached) ? entry.replacing(cached) : cached;
+            }
+        );
+        changed(name, previous[0], current);
+        if (previous[0] == null && cache.size() > maxCachedConfigs) {
+            evict();
+        }
+    }
+
+    /**
+     * Applies a change of the config store to the config if it is cached.
+     */
+    private void apply(String name, Entry entry) {
+        Entry[] previous = new Entry[1];
+        Entry current = cache.computeIfPresent(
+            name,
+            (key, cached) -> {
+                previous[0] = cached;
+                return entry.supersedes(cached) ? entry.replacing(cached) : cached;
+            }
+        );
+        if (current != null) {
+            changed(name, previous[0], current);
+        }
+    }
+
+    private void changed(String name, Entry previous, Entry current) {
+        if (previous == current || (previous != null && previous.sameAs(current))) {
+            return;
+        }
+        scheduleSnapshot();
+        if (previous == null) {
+            return;
+        }
+        for (ConfigListener listener : listeners) {
+            try {
+                listener.configChanged(name, Optional.ofNullable(current.config));
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Config listener failed on change of config " + name, e);
+            }
+        }
+    }
+
+    /**
+     * Brings the cache back to 90% of its bound, evicting the cached absences of configs first, then the configs least
+     * recently looked up. Sorting only once every 10% of the bound inserts keeps the eviction cheap.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = cache.size() - (maxCachedConfigs - maxCachedConfigs / 10);
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, Entry>> entries = new ArrayList<>(cache.entrySet());
+            entries.sort(
+                Comparator
+                    .comparing((Map.Entry<String, Entry> cached) -> cached.getValue().config != null)
+                    .thenComparingLong(cached -> cached.getValue().lastRead)
+            );
+            entries.stream().limit(excess).forEach(cached -> cache.remove(cached.getKey(), cached.getValue()));
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Applies the changes of the config store since the last version seen to the cached configs, then schedules the
+     * next refresh.
+     */
+    private void refresh() {
+        synced()
+            .thenCompose(ignored -> send(() -> request("configs?sinceVersion=" + storeVersion.get()).timeout(requestTimeout).build()))
+            .thenAccept(
+                response -> {
+                    if (response.statusCode() != 200) {
+                        throw new ConfigClientException("Unexpected status " + response.statusCode() + " refreshing configs");
+                    }
+                    applyChanges(readValue(response.body(), JsonNode.class));
+                }
+            )
+            .whenComplete(
+                (ignored, error) -> {
+                    if (error == null) {
+                        refreshFailures = 0;
+                        schedule(this::refresh, jittered(refreshInterval.toMillis()));
+                    } else {
+                        logger.log(Level.DEBUG, "Config refresh failed, serving the last-known-good configs", error);
+                        schedule(this::refresh, Math.max(backoff(++refreshFailures), jittered(refreshInterval.toMillis())));
+                    }
+                }
+            );
+    }
+
+    /**
+     * Waits for the config store to change since the last version seen, applies the changes to the cached configs, and
+     * watches again.
+     */
+    private void watch() {
+        if (closed) {
+            return;
+        }
+        synced()
+            .thenCompose(ignored -> send(() -> request("configs/watch?version=" + storeVersion.get()).timeout(watchTimeout).build()))
+            .whenComplete(
+                (response, error) -> {
+                    try {
+                        if (error != null) {
+                            throw new ConfigClientException("Cannot watch configs", error);
+                        } else if (response.statusCode() == 200) {
+                            applyChanges(readValue(response.body(), JsonNode.class));
+                        } else if (response.statusCode() != 304) {
+                            throw new ConfigClientException("Unexpected status " + response.statusCode() + " watching configs");
+                        }
+                        watchFailures = 0;
+                        watch();
+                    } catch (RuntimeException e) {
+                        logger.log(Level.DEBUG, "Config watch failed, retrying", e);
+                        schedule(this::watch, backoff(++watchFailures));
+                    }
+                }
+            );
+    }
+
+    private void applyChanges(JsonNode delta) {
+        long version = delta.path("version").asLong();
+        if (delta.path("full").asBoolean()) {
+            Map<String, ConfigDTO> configs = new HashMap<>();
+            for (JsonNode node : delta.path("configs")) {
+                ConfigDTO config = objectMapper.convertValue(node, ConfigDTO.class);
+                configs.put(config.getName(), config);
+            }
+            for (String name : cache.keySet()) {
+                ConfigDTO config = configs.get(name);
+                apply(name, config != null ? new Entry(config, config.getVersion()) : new Entry(null, version));
+            }
+        } else {
+            for (JsonNode node : delta.path("configs")) {
+                ConfigDTO config = objectMapper.convertValue(node, ConfigDTO.class);
+                apply(config.getName(), new Entry(config, config.getVersion()));
+            }
+            for (JsonNode node : delta.path("deleted")) {
+                apply(node.path("name").asText(), new Entry(null, node.path("version").asLong()));
+            }
+        }
+        if (storeVersion.getAndAccumulate(version, Math::max) < version) {
+            scheduleSnapshot();
+        }
+    }
+
+    /**
+     * @return a future completed once the version of the config store to sync from is known, learning it if needed.
+     */
+    private synchronized CompletableFuture<Void> synced() {
+        if (seeding == null || seeding.isCompletedExceptionally()) {
+            seeding = seed();
+        }
+        return seeding;
+    }
+
+    /**
+     * Learns the current version of the config store from the ETag of {@code HEAD /configs}, without downloading the
+     * configs. The configs read before, or while, learning it may have missed changes older than that version, which
+     * no delta will bring, so they are revalidated once before syncing from it.
+     */
+    private CompletableFuture<Void> seed() {
+        return send(() -> request("configs").method("HEAD", HttpRequest.BodyPublishers.noBody()).timeout(requestTimeout).build())
+            .thenCompose(
+                response -> {
+                    if (response.statusCode() != 200) {
+                        throw new ConfigClientException("Unexpected status " + response.statusCode() + " getting the config store version");
+                    }
+                    long version = parseVersion(response.headers().firstValue("ETag").orElse(""));
+                    return CompletableFuture
+                        .allOf(inFlight.values().toArray(new CompletableFuture[0]))
+                        .handle((ignored, error) -> null)
+                        .thenCompose(
+                            ignored -> {
+                                List<CompletableFuture<Entry>> revalidations = new ArrayList<>();
+                                cache.forEach((name, entry) -> revalidations.add(fetch(name, entry)));
+                                return CompletableFuture.allOf(revalidations.toArray(new CompletableFuture[0]));
+                            }
+                        )
+                        .thenRun(() -> storeVersion.accumulateAndGet(version, Math::max));
+                }
+            );
+    }
+
+    /**
+     * @param eTag an ETag of {@code /configs}, e.g. {@code "42"} or {@code "42-gzip"}.
+     * @return the version of the config store it names.
+     */
+    private static long parseVersion(String eTag) {
+        String value = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        int end = value.indexOf('-') > 0 ? value.indexOf('-') : value.length() - 1;
+        try {
+            return Long.parseLong(value.substring(1, end));
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new ConfigClientException("Unexpected ETag " + eTag + " getting the config store version", e);
+        }
+    }
+
+    private void loadSnapshot() {
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(snapshot.toFile());
+            for (JsonNode config : node.path("configs")) {
+                ConfigDTO dto = objectMapper.convertValue(config, ConfigDTO.class);
+                cache.put(dto.getName(), new Entry(dto, dto.getVersion()));
+            }
+            storeVersion.set(node.path("version").asLong());
+            if (cache.size() > maxCachedConfigs) {
+                evict();
+            }
+            logger.log(Level.DEBUG, "Loaded {0} configs from snapshot {1}", cache.size(), snapshot);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.log(Level.WARNING, "Ignoring unreadable config snapshot " + snapshot, e);
+        }
+    }
+
+    private void scheduleSnapshot() {
+        if (snapshot != null && snapshotPending.compareAndSet(false, true)) {
+            schedule(this::writeSnapshot, 0);
+        }
+    }
+
+    /**
+     * Writes the cached configs to a temporary file moved over the snapshot, so that a crash never leaves a partial
+     * snapshot behind.
+     */
+    private synchronized void writeSnapshot() {
+        snapshotPending.set(false);
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("version", storeVersion.get());
+        ArrayNode configs = node.putArray("configs");
+        cache
+            .values()
+            .stream()
+            .map(entry -> entry.config)
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparing(ConfigDTO::getName))
+            .forEach(configs::addPOJO);
+        Path temp = null;
+        try {
+            Path directory = snapshot.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), node);
+            try {
+                Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cannot write config snapshot " + snapshot, e);
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path)).header("Accept", "application/json");
+        headers.forEach(request::header);
+        return request;
+    }
+
+    /**
+     * @return the response to a request, failed rather than thrown if the request cannot be built or sent.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> send(Supplier<HttpRequest> request) {
+        try {
+            return httpClient.sendAsync(request.get(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T readValue(byte[] body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new ConfigClientException("Cannot read " + type.getSimpleName() + " response", e);
+        }
+    }
+
+    private void schedule(Runnable task, long delayMillis) {
+        if (closed) {
+            return;
+        }
+        try {
+            scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed in between
+        }
+    }
+
+    /**
+     * @return a delay within 10% of {@code millis}, so that clients started together do not refresh together.
+     */
+    private static long jittered(long millis) {
+        return ThreadLocalRandom.current().nextLong(millis - millis / 10, millis + millis / 10 + 1);
+    }
+
+    /**
+     * @return a random delay between half and all of an exponentially growing delay, capped at one minute.
+     */
+    private static long backoff(int failures) {
+        long max = Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << Math.min(failures - 1, 16));
+        return ThreadLocalRandom.current().nextLong(max / 2, max + 1);
+    }
+
+    /**
+     * A cached config, or a cached absence of config.
+     */
+    private static final class Entry {
+
+        /**
+         * The config, {@code null} if it does not exist.
+         */
+        private final ConfigDTO config;
+
+        /**
+         * The version of the config, or of its deletion, {@code 0} if unknown.
+         */
+        private final long version;
+
+        /**
+         * The {@link System#nanoTime()} of the last lookup of the config, to evict the least recently looked up. Not
+         * volatile, as a lost update only makes the eviction a little less accurate.
+         */
+        private long lastRead = System.nanoTime();
+
+        private Entry(ConfigDTO config, long version) {
+            this.config = config;
+            this.version = version;
+        }
+
+        /**
+         * @return this entry, looked up as recently as the entry it replaces.
+         */
+        private Entry replacing(Entry cached) {
+            if (cached != null && cached != this) {
+                lastRead = Math.max(lastRead, cached.lastRead);
+            }
+            return this;
+        }
+
+        private boolean supersedes(Entry cached) {
+            return cached == null || version == 0 || cached.version == 0 || version >= cached.version;
+        }
+
+        private boolean sameAs(Entry other) {
+            return version == other.version && (config == null) == (other.config == null);
+        }
+    }
+
+    /**
+     * Builder of {@link LightchurchConfigClient}.
+     */
+    public static final class Builder {
+
+        private final URI baseUri;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private HttpClient httpClient;
+        private Duration requestTimeout = Duration.ofSeconds(10);
+        private Duration refreshInterval = Duration.ofSeconds(30);
+        private boolean watch;
+        private Duration watchTimeout = Duration.ofSeconds(90);
+        private int maxCachedConfigs = 10_000;
+        private Path snapshot;
+
+        private Builder(URI baseUri) {
+            this.baseUri = Objects.requireNonNull(baseUri, "baseUri");
+        }
+
+        /**
+         * @param httpClient the HTTP client to send the requests with, a default one if not set.
+         */
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Adds a header to all the requests, e.g. {@code Authorization}.
+         */
+        public Builder header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * @param requestTimeout the timeout of the requests reading a config, 10 seconds by default.
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * @param refreshInterval the interval between the refreshes of the cached configs, 30 seconds by default,
+         *                        {@link Duration#ZERO} to never refresh them.
+         */
+        public Builder refreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * @param watch whether to long-poll {@code /configs/watch} to apply the changes of the cached configs as soon
+         *              as they are committed, off by default.
+         */
+        public Builder watch(boolean watch) {
+            this.watch = watch;
+            return this;
+        }
+
+        /**
+         * @param watchTimeout the timeout of the watch requests, longer than the watch timeout of the server, 90
+         *                     seconds by default.
+         */
+        public Builder watchTimeout(Duration watchTimeout) {
+            this.watchTimeout = watchTimeout;
+            return this;
+        }
+
+        /**
+         * @param maxCachedConfigs the maximum number of configs, and absences of configs, to cache, 10000 by default.
+         */
+        public Builder maxCachedConfigs(int maxCachedConfigs) {
+            if (maxCachedConfigs < 1) {
+                throw new IllegalArgumentException("maxCachedConfigs must be positive");
+            }
+            this.maxCachedConfigs = maxCachedConfigs;
+            return this;
+        }
+
+        /**
+         * @param snapshot the file to persist the cached configs to, and to load them from on start.
+         */
+        public Builder snapshot(Path snapshot) {
+            this.snapshot = snapshot;
+            return this;
+        }
+
+        public LightchurchConfigClient build() {
+            return new LightchurchConfigClient(this);
+        }
+    }
+}
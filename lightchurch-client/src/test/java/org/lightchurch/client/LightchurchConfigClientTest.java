@@ -0,0 +1,269 @@
+package org.lightchurch.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link LightchurchConfigClient}, against an in-process server faking the {@code /configs} endpoints.
+ */
+class LightchurchConfigClientTest {
+
+    private static final String CONFIG_NAME = "data-src";
+
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final Map<String, Long> deletions = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger storeVersion = new AtomicInteger();
+    private volatile CountDownLatch released = new CountDownLatch(0);
+    private volatile boolean unavailable;
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/configs", this::handle);
+        server.start();
+        putConfig(CONFIG_NAME);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void coalescesConcurrentLookups() throws Exception {
+        released = new CountDownLatch(1);
+        try (LightchurchConfigClient client = client().build()) {
+            List<CompletableFuture<Optional<ConfigDTO>>> lookups = IntStream
+                .range(0, 10)
+                .mapToObj(i -> client.getConfigAsync(CONFIG_NAME))
+                .collect(Collectors.toList());
+            released.countDown();
+
+            for (CompletableFuture<Optional<ConfigDTO>> lookup : lookups) {
+                assertThat(lookup.get(5, TimeUnit.SECONDS)).map(ConfigDTO::getVersion).contains(1L);
+            }
+            assertThat(client.getConfig(CONFIG_NAME)).map(ConfigDTO::getMetaData).contains(Map.of("monitoring", "v1"));
+            assertThat(client.getConfig("missing")).isEmpty();
+            assertThat(client.getConfig("missing")).isEmpty();
+            assertThat(requests).containsExactly("GET /configs/data-src", "GET /configs/missing");
+        }
+    }
+
+    @Test
+    void failsLookupsThatCannotBeSent() {
+        try (LightchurchConfigClient client = client().header("Connection", "close").build()) {
+            for (int i = 0; i < 2; i++) {
+                assertThatThrownBy(() -> client.getConfigAsync(CONFIG_NAME).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ConfigClientException.class);
+            }
+        }
+    }
+
+    @Test
+    void evictsAbsentThenLeastRecentlyLookedUpConfigs() {
+        putConfig("other");
+        putConfig("third");
+        try (LightchurchConfigClient client = client().maxCachedConfigs(2).build()) {
+            client.getConfig("missing");
+            client.getConfig(CONFIG_NAME);
+            client.getConfig("other");
+            client.getConfig(CONFIG_NAME);
+            client.getConfig("missing");
+            assertThat(requests).filteredOn("GET /configs/missing"::equals).hasSize(2);
+
+            client.getConfig("third");
+            client.getConfig(CONFIG_NAME);
+            client.getConfig("other");
+            assertThat(requests).filteredOn("GET /configs/data-src"::equals).hasSize(1);
+            assertThat(requests).filteredOn("GET /configs/other"::equals).hasSize(2);
+        }
+    }
+
+    @Test
+    void refreshesWithTheChangesOfTheStore() throws Exception {
+        List<String> changes = new CopyOnWriteArrayList<>();
+        try (LightchurchConfigClient client = client().refreshInterval(Duration.ofMillis(50)).build()) {
+            client.addListener((name, config) -> changes.add(name + "@" + config.map(ConfigDTO::getVersion).orElse(null)));
+            assertThat(client.getConfig(CONFIG_NAME)).isPresent();
+            await(() -> requests.contains("GET /configs?sinceVersion=1"));
+
+            putConfig(CONFIG_NAME);
+            await(() -> client.getConfig(CONFIG_NAME).map(ConfigDTO::getVersion).equals(Optional.of(2L)));
+            assertThat(client.getConfig(CONFIG_NAME)).map(ConfigDTO::getMetaData).contains(Map.of("monitoring", "v2"));
+
+            deleteConfig(CONFIG_NAME);
+            await(() -> client.getConfig(CONFIG_NAME).isEmpty());
+            assertThat(changes).containsExactly("data-src@2", "data-src@null");
+            assertThat(requests).filteredOn("GET /configs/data-src"::equals).hasSize(1);
+            assertThat(requests).doesNotContain("GET /configs?sinceVersion=0");
+        }
+    }
+
+    @Test
+    void servesLastKnownGoodSnapshotOnColdStart(@TempDir Path directory) throws Exception {
+        Path snapshot = directory.resolve("configs.json");
+        try (LightchurchConfigClient client = client().snapshot(snapshot).build()) {
+            assertThat(client.getConfig(CONFIG_NAME)).isPresent();
+        }
+        assertThat(Files.readString(snapshot)).contains("\"monitoring\":\"v1\"");
+
+        unavailable = true;
+        requests.clear();
+        try (LightchurchConfigClient client = client().snapshot(snapshot).refreshInterval(Duration.ofMillis(50)).build()) {
+            assertThat(client.getConfig(CONFIG_NAME)).map(ConfigDTO::getVersion).contains(1L);
+            await(() -> requests.contains("HEAD /configs 503"));
+            assertThat(client.getConfig(CONFIG_NAME)).map(ConfigDTO::getVersion).contains(1L);
+            assertThatThrownBy(() -> client.getConfig("other")).isInstanceOf(ConfigClientException.class);
+        }
+    }
+
+    @Test
+    void appliesWatchedChanges() throws Exception {
+        try (LightchurchConfigClient client = client().watch(true).build()) {
+            assertThat(client.getConfig(CONFIG_NAME)).isPresent();
+            await(() -> requests.contains("GET /configs/watch?version=1"));
+
+            putConfig(CONFIG_NAME);
+            await(() -> client.getConfig(CONFIG_NAME).map(ConfigDTO::getVersion).equals(Optional.of(2L)));
+            assertThat(requests).filteredOn("GET /configs/data-src"::equals).hasSize(1);
+            assertThat(requests).contains("HEAD /configs").doesNotContain("GET /configs/watch?version=0");
+        }
+    }
+
+    private LightchurchConfigClient.Builder client() {
+        return LightchurchConfigClient
+            .builder(URI.create("http://localhost:" + server.getAddress().getPort()))
+            .refreshInterval(Duration.ZERO)
+            .requestTimeout(Duration.ofSeconds(5));
+    }
+
+    private void putConfig(String name) {
+        versions.put(name, (long) storeVersion.incrementAndGet());
+        deletions.remove(name);
+    }
+
+    private void deleteConfig(String name) {
+        versions.remove(name);
+        deletions.put(name, (long) storeVersion.incrementAndGet());
+    }
+
+    private String json(String name, long version) {
+        return "{\"name\":\"" + name + "\",\"version\":" + version + ",\"metadata\":{\"monitoring\":\"v" + version + "\"}}";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String request =
+            exchange.getRequestMethod() + " " + exchange.getRequestURI() + (ifNoneMatch != null ? " If-None-Match " + ifNoneMatch : "");
+        try {
+            released.await(5, TimeUnit.SECONDS);
+            if (unavailable) {
+                requests.add(request + " 503");
+                respond(exchange, 503, null);
+            } else if (path.equals("/configs")) {
+                requests.add(request);
+                if (exchange.getRequestMethod().equals("HEAD")) {
+                    exchange.getResponseHeaders().set("ETag", "\"" + storeVersion.get() + "\"");
+                    respond(exchange, 200, null);
+                } else {
+                    respond(exchange, 200, delta(Long.parseLong(exchange.getRequestURI().getQuery().substring("sinceVersion=".length()))));
+                }
+            } else if (path.equals("/configs/watch")) {
+                requests.add(request);
+                watch(exchange, Long.parseLong(exchange.getRequestURI().getQuery().substring("version=".length())));
+            } else {
+                String name = path.substring("/configs/".length());
+                Long version = versions.get(name);
+                if (version == null) {
+                    requests.add(request);
+                    respond(exchange, 404, null);
+                } else if (("\"" + version + "\"").equals(ifNoneMatch)) {
+                    requests.add(request + " 304");
+                    respond(exchange, 304, null);
+                } else {
+                    requests.add(request);
+                    respond(exchange, 200, json(name, version));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch(HttpExchange exchange, long sinceVersion) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        while (storeVersion.get() <= sinceVersion && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (storeVersion.get() <= sinceVersion) {
+            respond(exchange, 304, null);
+            return;
+        }
+        respond(exchange, 200, delta(sinceVersion));
+    }
+
+    private String delta(long sinceVersion) {
+        long version = storeVersion.get();
+        String configs = versions
+            .entrySet()
+            .stream()
+            .filter(entry -> entry.getValue() > sinceVersion)
+            .map(entry -> json(entry.getKey(), entry.getValue()))
+            .collect(Collectors.joining(","));
+        String deleted = deletions
+            .entrySet()
+            .stream()
+            .filter(entry -> entry.getValue() > sinceVersion)
+            .map(entry -> "{\"name\":\"" + entry.getKey() + "\",\"version\":" + entry.getValue() + "}")
+            .collect(Collectors.joining(","));
+        return "{\"version\":" + version + ",\"full\":false,\"configs\":[" + configs + "],\"deleted\":[" + deleted + "]}";
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 10 seconds").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
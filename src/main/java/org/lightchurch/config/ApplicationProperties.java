@@ -1,5 +1,7 @@
 package org.lightchurch.config;
 
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +11,357 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Configs configs = new Configs();
+
+    private final Cache cache = new Cache();
+
+    public Configs getConfigs() {
+        return configs;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * Storage tiers of the Ehcache caches. Caches without tiers keep the entry-count sized heap of
+     * {@code jhipster.cache.ehcache}.
+     */
+    public static class Cache {
+
+        private String persistenceDirectory;
+
+        private final Map<String, Tiers> tiers = new HashMap<>();
+
+        private final Invalidation invalidation = new Invalidation();
+
+        public String getPersistenceDirectory() {
+            return persistenceDirectory;
+        }
+
+        public void setPersistenceDirectory(String persistenceDirectory) {
+            this.persistenceDirectory = persistenceDirectory;
+        }
+
+        public Map<String, Tiers> getTiers() {
+            return tiers;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        /**
+         * Broadcast of the cache evictions of this instance to the other instances found through discovery.
+         */
+        public static class Invalidation {
+
+            private boolean enabled = true;
+
+            private long batchIntervalMs = 200;
+
+            private long retryBackoffMs = 1000;
+
+            private long maxRetryBackoffMs = 60000;
+
+            private int timeoutMs = 5000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getBatchIntervalMs() {
+                return batchIntervalMs;
+            }
+
+            public void setBatchIntervalMs(long batchIntervalMs) {
+                this.batchIntervalMs = batchIntervalMs;
+            }
+
+            public long getRetryBackoffMs() {
+                return retryBackoffMs;
+            }
+
+            public void setRetryBackoffMs(long retryBackoffMs) {
+                this.retryBackoffMs = retryBackoffMs;
+            }
+
+            public long getMaxRetryBackoffMs() {
+                return maxRetryBackoffMs;
+            }
+
+            public void setMaxRetryBackoffMs(long maxRetryBackoffMs) {
+                this.maxRetryBackoffMs = maxRetryBackoffMs;
+            }
+
+            public int getTimeoutMs() {
+                return timeoutMs;
+            }
+
+            public void setTimeoutMs(int timeoutMs) {
+                this.timeoutMs = timeoutMs;
+            }
+        }
+
+        /**
+         * Sizes of the tiers of a cache: the heap in entries, as Ehcache cannot measure the objects it holds without
+         * access to the JDK internals, and the lower tiers in MB, each larger than the one above it. Off-heap and disk
+         * tiers are skipped when {@code 0}, and hold serialized copies of the entries.
+         */
+        public static class Tiers {
+
+            private long heapEntries;
+
+            private long offheapMb;
+
+            private long diskMb;
+
+            public long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public long getOffheapMb() {
+                return offheapMb;
+            }
+
+            public void setOffheapMb(long offheapMb) {
+                this.offheapMb = offheapMb;
+            }
+
+            public long getDiskMb() {
+                return diskMb;
+            }
+
+            public void setDiskMb(long diskMb) {
+                this.diskMb = diskMb;
+            }
+        }
+    }
+
+    public static class Configs {
+
+        private final Payload payload = new Payload();
+
+        private final Watch watch = new Watch();
+
+        private final Events events = new Events();
+
+        private final Search search = new Search();
+
+        private final EntityCache entityCache = new EntityCache();
+
+        private final WriteCoalescing writeCoalescing = new WriteCoalescing();
+
+        private final Storage storage = new Storage();
+
+        private int tombstoneRetentionDays = 30;
+
+        public Payload getPayload() {
+            return payload;
+        }
+
+        public Watch getWatch() {
+            return watch;
+        }
+
+        public Events getEvents() {
+            return events;
+        }
+
+        public Search getSearch() {
+            return search;
+        }
+
+        public EntityCache getEntityCache() {
+            return entityCache;
+        }
+
+        public WriteCoalescing getWriteCoalescing() {
+            return writeCoalescing;
+        }
+
+        public Storage getStorage() {
+            return storage;
+        }
+
+        public int getTombstoneRetentionDays() {
+            return tombstoneRetentionDays;
+        }
+
+        public void setTombstoneRetentionDays(int tombstoneRetentionDays) {
+            this.tombstoneRetentionDays = tombstoneRetentionDays;
+        }
+
+        /**
+         * Pre-serialized response bodies of the config endpoints.
+         */
+        public static class Payload {
+
+            private boolean gzip = true;
+
+            private int gzipMinSize = 1024;
+
+            public boolean isGzip() {
+                return gzip;
+            }
+
+            public void setGzip(boolean gzip) {
+                this.gzip = gzip;
+            }
+
+            public int getGzipMinSize() {
+                return gzipMinSize;
+            }
+
+            public void setGzipMinSize(int gzipMinSize) {
+                this.gzipMinSize = gzipMinSize;
+            }
+        }
+
+        /**
+         * Long-polling watches of the configs.
+         */
+        public static class Watch {
+
+            private long timeoutSeconds = 30;
+
+            public long getTimeoutSeconds() {
+                return timeoutSeconds;
+            }
+
+            public void setTimeoutSeconds(long timeoutSeconds) {
+                this.timeoutSeconds = timeoutSeconds;
+            }
+        }
+
+        /**
+         * Server-sent events streams of the config changes.
+         */
+        public static class Events {
+
+            private int bufferSize = 1000;
+
+            private long timeoutMinutes = 30;
+
+            private long pollIntervalMs = 1000;
+
+            public int getBufferSize() {
+                return bufferSize;
+            }
+
+            public void setBufferSize(int bufferSize) {
+                this.bufferSize = bufferSize;
+            }
+
+            public long getTimeoutMinutes() {
+                return timeoutMinutes;
+            }
+
+            public void setTimeoutMinutes(long timeoutMinutes) {
+                this.timeoutMinutes = timeoutMinutes;
+            }
+
+            public long getPollIntervalMs() {
+                return pollIntervalMs;
+            }
+
+            public void setPollIntervalMs(long pollIntervalMs) {
+                this.pollIntervalMs = pollIntervalMs;
+            }
+        }
+
+        /**
+         * Searches of the configs by metadata.
+         */
+        public static class Search {
+
+            private int cacheSize = 1000;
+
+            public int getCacheSize() {
+                return cacheSize;
+            }
+
+            public void setCacheSize(int cacheSize) {
+                this.cacheSize = cacheSize;
+            }
+        }
+
+        /**
+         * Updates asking to be coalesced, which are applied together once their window is over.
+         */
+        public static class WriteCoalescing {
+
+            private long windowMs = 50;
+
+            public long getWindowMs() {
+                return windowMs;
+            }
+
+            public void setWindowMs(long windowMs) {
+                this.windowMs = windowMs;
+            }
+        }
+
+        /**
+         * Storage of the metadata of the configs in the database, see {@link org.lightchurch.service.ConfigMetadataCodec}.
+         */
+        public static class Storage {
+
+            private int compressionMinSize = 512;
+
+            private int compressionLevel = 6;
+
+            public int getCompressionMinSize() {
+                return compressionMinSize;
+            }
+
+            public void setCompressionMinSize(int compressionMinSize) {
+                this.compressionMinSize = compressionMinSize;
+            }
+
+            public int getCompressionLevel() {
+                return compressionLevel;
+            }
+
+            public void setCompressionLevel(int compressionLevel) {
+                this.compressionLevel = compressionLevel;
+            }
+        }
+
+        /**
+         * Hibernate second-level cache region of the config entities, sized apart from the other entities.
+         */
+        public static class EntityCache {
+
+            private long maxEntries = 10000;
+
+            private long timeToLiveSeconds = 3600;
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+}
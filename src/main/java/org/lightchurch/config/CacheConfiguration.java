@@ -1,9 +1,21 @@
 package org.lightchurch.config;
 
+import java.io.File;
+import java.io.Serializable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.cache.Caching;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
@@ -24,10 +36,15 @@ public class CacheConfiguration {
 
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final ApplicationProperties.Cache cacheProperties;
+    private final long timeToLiveSeconds;
+    private final javax.cache.configuration.Configuration<?, ?> jcacheConfiguration;
+    private final javax.cache.configuration.Configuration<?, ?> configEntityCacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+        cacheProperties = applicationProperties.getCache();
+        timeToLiveSeconds = ehcache.getTimeToLiveSeconds();
 
         jcacheConfiguration =
             Eh107Configuration.fromEhcacheCacheConfiguration(
@@ -36,6 +53,46 @@ public class CacheConfiguration {
                     .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
                     .build()
             );
+
+        ApplicationProperties.Configs.EntityCache entityCache = applicationProperties.getConfigs().getEntityCache();
+        javax.cache.configuration.Configuration<?, ?> configEntityTiers = tieredCacheConfiguration(
+            org.lightchurch.domain.Config.class.getName(),
+            entityCache.getTimeToLiveSeconds()
+        );
+        configEntityCacheConfiguration =
+            configEntityTiers != null
+                ? configEntityTiers
+                : Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(entityCache.getMaxEntries()))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(entityCache.getTimeToLiveSeconds())))
+                        .build()
+                );
+    }
+
+    /**
+     * Replaces the cache manager of Spring Boot to give it a persistence directory, which the disk tiers need, and the
+     * service publishing the statistics of the tiers.
+     */
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        List<ServiceCreationConfiguration<?, ?>> services = new ArrayList<>();
+        services.add(new CacheTierMetrics.StatisticsServiceHolder());
+        if (cacheProperties.getPersistenceDirectory() != null) {
+            services.add(new DefaultPersistenceConfiguration(new File(cacheProperties.getPersistenceDirectory())));
+        }
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(
+            provider.getDefaultURI(),
+            new DefaultConfiguration(provider.getDefaultClassLoader(), services.toArray(new ServiceCreationConfiguration<?, ?>[0]))
+        );
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
+    }
+
+    @Bean
+    public CacheTierMetrics cacheTierMetrics(javax.cache.CacheManager cacheManager) {
+        return new CacheTierMetrics(cacheManager);
     }
 
     @Bean
@@ -51,16 +108,61 @@ public class CacheConfiguration {
             createCache(cm, org.lightchurch.domain.User.class.getName());
             createCache(cm, org.lightchurch.domain.Authority.class.getName());
             createCache(cm, org.lightchurch.domain.User.class.getName() + ".authorities");
+            createCache(cm, org.lightchurch.service.ConfigService.CONFIGS_BY_NAME_CACHE);
+            createCache(cm, org.lightchurch.service.ConfigService.CONFIG_PAYLOADS_BY_NAME_CACHE);
+            createCache(cm, org.lightchurch.domain.Config.class.getName(), configEntityCacheConfiguration);
+            // Statistics back the hit, miss and eviction metrics published to Micrometer for these caches
+            cm.enableStatistics(org.lightchurch.service.ConfigService.CONFIGS_BY_NAME_CACHE, true);
+            cm.enableStatistics(org.lightchurch.service.ConfigService.CONFIG_PAYLOADS_BY_NAME_CACHE, true);
+            cm.enableStatistics(org.lightchurch.domain.Config.class.getName(), true);
             // jhipster-needle-ehcache-add-entry
         };
     }
 
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
-        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
+        javax.cache.configuration.Configuration<?, ?> tieredConfiguration = tieredCacheConfiguration(cacheName, timeToLiveSeconds);
+        createCache(cm, cacheName, tieredConfiguration != null ? tieredConfiguration : jcacheConfiguration);
+    }
+
+    /**
+     * @return the configuration of the tiers set for a cache in {@code application.cache.tiers}, {@code null} if none
+     */
+    private javax.cache.configuration.Configuration<?, ?> tieredCacheConfiguration(String cacheName, long timeToLiveSeconds) {
+        ApplicationProperties.Cache.Tiers tiers = cacheProperties.getTiers().get(cacheName);
+        if (tiers == null) {
+            return null;
+        }
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(tiers.getHeapEntries(), EntryUnit.ENTRIES);
+        if (tiers.getOffheapMb() > 0) {
+            resourcePools = resourcePools.offheap(tiers.getOffheapMb(), MemoryUnit.MB);
+        }
+        if (tiers.getDiskMb() > 0) {
+            if (cacheProperties.getPersistenceDirectory() == null) {
+                throw new IllegalStateException("application.cache.persistence-directory is required by the disk tier of " + cacheName);
+            }
+            // Not persistent: the entries of a previous run may be older than the database, and are dropped on start
+            resourcePools = resourcePools.disk(tiers.getDiskMb(), MemoryUnit.MB, false);
+        }
+        // Entries of the lower tiers are serialized, which Ehcache only does for serializable types
+        Class<?> type = tiers.getOffheapMb() > 0 || tiers.getDiskMb() > 0 ? Serializable.class : Object.class;
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(type, type, resourcePools)
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds)))
+                .build()
+        );
+    }
+
+    private void createCache(
+        javax.cache.CacheManager cm,
+        String cacheName,
+        javax.cache.configuration.Configuration<?, ?> cacheConfiguration
+    ) {
+        javax.cache.Cache<?, ?> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, cacheConfiguration);
         }
     }
 
@@ -0,0 +1,125 @@
+package org.lightchurch.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.cache.CacheManager;
+import org.ehcache.core.spi.service.ServiceFactory;
+import org.ehcache.core.spi.service.ServiceUtils;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.TierStatistics;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+import org.ehcache.spi.service.ServiceDependencies;
+import org.ehcache.spi.service.ServiceProvider;
+
+/**
+ * Publishes the hits, misses, mappings and occupied bytes of every tier (on-heap, off-heap, disk) of the Ehcache
+ * caches, tagged with the cache and tier names. The JCache metrics only cover the cache as a whole.
+ * <p>
+ * The statistics are read from the {@link StatisticsService} of Ehcache, which the JCache cache manager does not expose:
+ * it must be created with a {@link StatisticsServiceHolder} among its service configurations.
+ */
+public class CacheTierMetrics implements MeterBinder {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Referenced here as the meters only hold weak references to the statistics they read.
+     */
+    private final List<TierStatistics> tierStatistics = new ArrayList<>();
+
+    private final StatisticsService statisticsService;
+
+    public CacheTierMetrics(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+        StatisticsServiceHolder holder = ServiceUtils.findSingletonAmongst(
+            StatisticsServiceHolder.class,
+            cacheManager.unwrap(org.ehcache.CacheManager.class).getRuntimeConfiguration().getServiceCreationConfigurations()
+        );
+        if (holder == null || holder.statisticsService == null) {
+            throw new IllegalStateException("The cache manager was not created with a " + StatisticsServiceHolder.class.getSimpleName());
+        }
+        this.statisticsService = holder.statisticsService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            for (Map.Entry<String, TierStatistics> tier : statisticsService.getCacheStatistics(cacheName).getTierStatistics().entrySet()) {
+                String tierName = tier.getKey();
+                TierStatistics statistics = tier.getValue();
+                tierStatistics.add(statistics);
+                Tags tags = Tags.of("cache", cacheName, "tier", tierName);
+                FunctionCounter
+                    .builder("cache.tier.hits", statistics, TierStatistics::getHits)
+                    .tags(tags)
+                    .description("The number of lookups served by the tier")
+                    .register(registry);
+                FunctionCounter
+                    .builder("cache.tier.misses", statistics, TierStatistics::getMisses)
+                    .tags(tags)
+                    .description("The number of lookups not served by the tier")
+                    .register(registry);
+                Gauge
+                    .builder("cache.tier.size", statistics, TierStatistics::getMappings)
+                    .tags(tags)
+                    .description("The number of entries held by the tier")
+                    .register(registry);
+                Gauge
+                    .builder("cache.tier.occupied", statistics, TierStatistics::getOccupiedByteSize)
+                    .tags(tags)
+                    .baseUnit(BaseUnits.BYTES)
+                    .description("The bytes used by the entries of the tier, -1 if unknown")
+                    .register(registry);
+            }
+        }
+    }
+
+    /**
+     * Service, and its own configuration, given to the Ehcache cache manager to capture its {@link StatisticsService}.
+     */
+    @ServiceDependencies(StatisticsService.class)
+    public static class StatisticsServiceHolder implements Service, ServiceCreationConfiguration<StatisticsServiceHolder, Void> {
+
+        private volatile StatisticsService statisticsService;
+
+        @Override
+        public Class<StatisticsServiceHolder> getServiceType() {
+            return StatisticsServiceHolder.class;
+        }
+
+        @Override
+        public void start(ServiceProvider<Service> serviceProvider) {
+            statisticsService = serviceProvider.getService(StatisticsService.class);
+        }
+
+        @Override
+        public void stop() {
+            statisticsService = null;
+        }
+    }
+
+    /**
+     * Hands the {@link StatisticsServiceHolder} configured to the cache manager back as its service. Registered in
+     * {@code META-INF/services}, where Ehcache looks its service factories up.
+     */
+    public static class StatisticsServiceHolderFactory implements ServiceFactory<StatisticsServiceHolder> {
+
+        @Override
+        public StatisticsServiceHolder create(ServiceCreationConfiguration<StatisticsServiceHolder, ?> configuration) {
+            return (StatisticsServiceHolder) configuration;
+        }
+
+        @Override
+        public Class<StatisticsServiceHolder> getServiceType() {
+            return StatisticsServiceHolder.class;
+        }
+    }
+}
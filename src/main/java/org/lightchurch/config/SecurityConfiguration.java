@@ -2,6 +2,7 @@ package org.lightchurch.config;
 
 import org.lightchurch.security.*;
 import org.lightchurch.security.jwt.*;
+import org.lightchurch.service.CacheInvalidationService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -90,8 +91,9 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .antMatchers("/api/activate").permitAll()
             .antMatchers("/api/account/reset-password/init").permitAll()
             .antMatchers("/api/account/reset-password/finish").permitAll()
+            .antMatchers(CacheInvalidationService.PEER_INVALIDATION_PATH).hasAuthority(AuthoritiesConstants.CACHE_PEER)
             .antMatchers("/api/admin/**").hasAuthority(AuthoritiesConstants.ADMIN)
-            .antMatchers("/api/**").authenticated()
+            .antMatchers("/api/**").access("isAuthenticated() and !hasAuthority('" + AuthoritiesConstants.CACHE_PEER + "')")
             .antMatchers("/management/health").permitAll()
             .antMatchers("/management/health/**").permitAll()
             .antMatchers("/management/info").permitAll()
@@ -1,10 +1,15 @@
 package org.lightchurch.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Lob;
 import javax.persistence.Table;
+import javax.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * @author tom9b
@@ -14,9 +19,15 @@ import javax.persistence.Table;
  * @project configs-api
  * <p>
  * A configuration
+ * <p>
+ * Cached in its own second-level cache region, sized by {@code application.configs.entity-cache}. The name being the
+ * primary key, lookups by name are served from this region, writes included. The region is {@code READ_WRITE}: entries
+ * are locked while a transaction changes them, so that a concurrent reader cannot put back the row a write replaced,
+ * which would make the optimistic lock of every later write on it fail until the entry expires.
  */
 @Entity
 @Table(name = "configs")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Config implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -25,8 +36,44 @@ public class Config implements Serializable {
     @Column(name = "name")
     private String name;
 
+    /**
+     * The metadata as a frame of {@link org.lightchurch.service.ConfigMetadataCodec}: UTF-8 JSON, compressed once large
+     * enough, which Jackson generates into and parses from the frame. Stored in a BLOB column so that configs of any size
+     * are stored whole.
+     */
+    @Lob
     @Column(name = "metadata")
-    private String metaData;
+    private byte[] metaData;
+
+    /**
+     * SHA-256 of the canonical JSON of the metadata, telling whether a write changes it. {@code null} for the configs
+     * stored before it was introduced.
+     */
+    @JsonIgnore
+    @Column(name = "metadata_hash", length = 64)
+    private String metaDataHash;
+
+    /**
+     * The {@link ConfigStore} version at which the config was last created or updated.
+     */
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
+    /**
+     * The {@link ConfigStore} version at which the config was created.
+     */
+    @Column(name = "created_version", nullable = false)
+    private Long createdVersion = 0L;
+
+    /**
+     * Incremented on every write and checked by Hibernate, so that a write based on a stale read fails instead of
+     * overwriting a concurrent one. {@code ConfigService} reads configs under the lock of the store, so that only writes
+     * made outside it can fail this check. {@code null} until the config is persisted.
+     */
+    @Version
+    @JsonIgnore
+    @Column(name = "revision", nullable = false)
+    private Long revision;
 
     public String getName() {
         return name;
@@ -36,11 +83,43 @@ public class Config implements Serializable {
         this.name = name;
     }
 
-    public String getMetaData() {
+    public byte[] getMetaData() {
         return metaData;
     }
 
-    public void setMetaData(String metaData) {
+    public void setMetaData(byte[] metaData) {
         this.metaData = metaData;
     }
+
+    public String getMetaDataHash() {
+        return metaDataHash;
+    }
+
+    public void setMetaDataHash(String metaDataHash) {
+        this.metaDataHash = metaDataHash;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getCreatedVersion() {
+        return createdVersion;
+    }
+
+    public void setCreatedVersion(Long createdVersion) {
+        this.createdVersion = createdVersion;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
 }
@@ -0,0 +1,63 @@
+package org.lightchurch.domain;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The version of the config store as a whole, held in a single row.
+ * <p>
+ * It is incremented by every create, update and delete of a {@link Config}, and the new value is stamped on the
+ * changed config. Versions are therefore unique and increase in commit order, since the row stays locked until the
+ * changing transaction completes.
+ */
+@Entity
+@Table(name = "config_store")
+public class ConfigStore implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Id of the single config store row.
+     */
+    public static final Long ID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * The highest version of the tombstones purged so far, changes since an older version can no longer be computed.
+     */
+    @Column(name = "purged_version", nullable = false)
+    private Long purgedVersion;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getPurgedVersion() {
+        return purgedVersion;
+    }
+
+    public void setPurgedVersion(Long purgedVersion) {
+        this.purgedVersion = purgedVersion;
+    }
+}
@@ -0,0 +1,81 @@
+package org.lightchurch.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Records the deletion of a {@link Config}, so that clients syncing changes since a version learn about it.
+ * <p>
+ * The name being assigned rather than generated, the tombstone tells itself whether it is new, so that saving a new one
+ * persists it with a batched INSERT instead of merging it after a SELECT.
+ */
+@Entity
+@Table(name = "config_tombstones")
+public class ConfigTombstone implements Serializable, Persistable<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    /**
+     * The {@link ConfigStore} version at which the config was deleted.
+     */
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "deleted_date", nullable = false)
+    private Instant deletedDate;
+
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getDeletedDate() {
+        return deletedDate;
+    }
+
+    public void setDeletedDate(Instant deletedDate) {
+        this.deletedDate = deletedDate;
+    }
+}
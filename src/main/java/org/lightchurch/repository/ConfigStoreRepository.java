@@ -0,0 +1,39 @@
+package org.lightchurch.repository;
+
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import org.lightchurch.domain.ConfigStore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link ConfigStore} entity.
+ */
+@Repository
+public interface ConfigStoreRepository extends JpaRepository<ConfigStore, Long> {
+    /**
+     * Increments the store version, locking the row until the transaction completes.
+     */
+    @Modifying
+    @Query("update ConfigStore s set s.version = s.version + :count where s.id = :id")
+    int incrementVersion(@Param("id") Long id, @Param("count") long count);
+
+    /**
+     * Locks the store row until the transaction completes, without changing the version. Only the id is selected, so
+     * that no {@link ConfigStore} is left in the persistence context to go stale on {@link #incrementVersion}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s.id from ConfigStore s where s.id = :id")
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @Query("select s.version from ConfigStore s where s.id = :id")
+    Long findVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query("update ConfigStore s set s.purgedVersion = :version where s.id = :id and s.purgedVersion < :version")
+    int updatePurgedVersion(@Param("id") Long id, @Param("version") Long version);
+}
@@ -0,0 +1,29 @@
+package org.lightchurch.repository;
+
+import java.time.Instant;
+import java.util.List;
+import org.lightchurch.domain.ConfigTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link ConfigTombstone} entity.
+ */
+@Repository
+public interface ConfigTombstoneRepository extends JpaRepository<ConfigTombstone, String> {
+    List<ConfigTombstone> findByVersionGreaterThanOrderByVersion(Long version);
+
+    @Query("select max(t.version) from ConfigTombstone t where t.deletedDate < :before")
+    Long findMaxVersionDeletedBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from ConfigTombstone t where t.name = :name")
+    int deleteByName(@Param("name") String name);
+
+    @Modifying
+    @Query("delete from ConfigTombstone t where t.version <= :version")
+    int deleteUpToVersion(@Param("version") Long version);
+}
@@ -2,8 +2,14 @@ package org.lightchurch.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.lightchurch.domain.Config;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -17,7 +23,33 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ConfigsRepository extends JpaRepository<Config, String> {
-    Optional<Config> findByName(String name);
+    /**
+     * Looks the config up by primary key rather than through a query, so that it is served from the second-level cache.
+     */
+    default Optional<Config> findByName(String name) {
+        return findById(name);
+    }
 
-    Optional<List<Config>> findByMetaDataContains(String regex);
+    List<Config> findByVersionGreaterThanOrderByVersion(Long version);
+
+    @Query("select c.version from Config c where c.name = :name")
+    Optional<Long> findVersionByName(@Param("name") String name);
+
+    /**
+     * Keyset pagination: the configs following {@code name}, in name order.
+     */
+    List<Config> findByNameGreaterThanOrderByName(String name, Pageable pageable);
+
+    /**
+     * Reads all the configs in name order through a database cursor, fetching a few rows at a time. Must be consumed and
+     * closed within a transaction.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+        }
+    )
+    @Query("select c from Config c order by c.name")
+    Stream<Config> streamAllByOrderByName();
 }
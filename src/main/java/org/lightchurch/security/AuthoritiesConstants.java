@@ -11,5 +11,10 @@ public final class AuthoritiesConstants {
 
     public static final String ANONYMOUS = "ROLE_ANONYMOUS";
 
+    /**
+     * Held by the short-lived tokens the instances send each other their cache evictions with, and by nothing else.
+     */
+    public static final String CACHE_PEER = "ROLE_CACHE_PEER";
+
     private AuthoritiesConstants() {}
 }
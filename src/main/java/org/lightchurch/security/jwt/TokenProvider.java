@@ -55,15 +55,19 @@ public class TokenProvider {
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
+        return createToken(authentication, rememberMe ? this.tokenValidityInMillisecondsForRememberMe : this.tokenValidityInMilliseconds);
+    }
+
+    /**
+     * @param authentication        the principal and authorities of the token
+     * @param validityInMilliseconds how long the token is valid for
+     * @return the signed token
+     */
+    public String createToken(Authentication authentication, long validityInMilliseconds) {
         String authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
 
         long now = (new Date()).getTime();
-        Date validity;
-        if (rememberMe) {
-            validity = new Date(now + this.tokenValidityInMillisecondsForRememberMe);
-        } else {
-            validity = new Date(now + this.tokenValidityInMilliseconds);
-        }
+        Date validity = new Date(now + validityInMilliseconds);
 
         return Jwts
             .builder()
@@ -0,0 +1,236 @@
+package org.lightchurch.service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.security.AuthoritiesConstants;
+import org.lightchurch.security.jwt.TokenProvider;
+import org.lightchurch.service.dto.CacheInvalidationDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Service class sending the cache evictions of this instance to the other instances of the application registered in
+ * discovery, so that they do not serve stale entries until their TTL expires.
+ * <p>
+ * Evictions are sent once the transaction making them commits, in batches. Every peer keeps the evictions it has not
+ * acknowledged yet, merged with the newer ones and resent with an exponential backoff until it acknowledges them or
+ * leaves discovery, so that every eviction is delivered at least once to every peer. Evicting is idempotent, so a
+ * redelivered batch is harmless. Batches are posted from the task executor, one at a time per peer, so that a slow peer
+ * does not hold back the others nor the scheduler.
+ * <p>
+ * Peers authenticate these requests with a token valid for a few seconds, holding
+ * {@link AuthoritiesConstants#CACHE_PEER} only.
+ */
+@Service
+public class CacheInvalidationService {
+
+    /**
+     * Path of the endpoint receiving the evictions of the peers.
+     */
+    public static final String PEER_INVALIDATION_PATH = "/api/admin/cache-invalidations";
+
+    private static final String SYSTEM_PRINCIPAL = "system";
+
+    private static final long SYSTEM_TOKEN_VALIDITY_MS = 10_000;
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private final DiscoveryClient discoveryClient;
+
+    private final ObjectProvider<Registration> registration;
+
+    private final TokenProvider tokenProvider;
+
+    private final RestTemplate restTemplate;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties.Cache.Invalidation invalidationProperties;
+
+    /**
+     * Evictions committed since the last batch, guarded by itself.
+     */
+    private final CacheInvalidationDTO pending = new CacheInvalidationDTO();
+
+    /**
+     * peer instance id -> delivery state, only used by the thread scheduling the batches. Every state is guarded by
+     * itself, as the batches are sent from the task executor.
+     */
+    private final Map<String, Peer> peers = new HashMap<>();
+
+    public CacheInvalidationService(
+        DiscoveryClient discoveryClient,
+        ObjectProvider<Registration> registration,
+        TokenProvider tokenProvider,
+        RestTemplateBuilder restTemplateBuilder,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        this.tokenProvider = tokenProvider;
+        this.taskExecutor = taskExecutor;
+        this.invalidationProperties = applicationProperties.getCache().getInvalidation();
+        this.restTemplate =
+            restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(invalidationProperties.getTimeoutMs()))
+                .setReadTimeout(Duration.ofMillis(invalidationProperties.getTimeoutMs()))
+                .build();
+    }
+
+    /**
+     * Sends the eviction of configs to the peers, once the surrounding transaction commits.
+     *
+     * @param names names of the evicted configs
+     */
+    public void invalidateConfigs(Collection<String> names) {
+        afterCommit(batch -> batch.getConfigNames().addAll(names));
+    }
+
+    /**
+     * Sends the eviction of a user to the peers, once the surrounding transaction commits.
+     *
+     * @param login login of the evicted user
+     * @param email email of the evicted user, {@code null} if it has none
+     */
+    public void invalidateUser(String login, String email) {
+        afterCommit(
+            batch -> {
+                batch.getUserLogins().add(login);
+                if (email != null) {
+                    batch.getUserEmails().add(email);
+                }
+            }
+        );
+    }
+
+    private void afterCommit(Consumer<CacheInvalidationDTO> eviction) {
+        if (!invalidationProperties.isEnabled()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        synchronized (pending) {
+                            eviction.accept(pending);
+                        }
+                    }
+                }
+            );
+        } else {
+            synchronized (pending) {
+                eviction.accept(pending);
+            }
+        }
+    }
+
+    /**
+     * Sends the evictions committed since the last batch, along with the ones not acknowledged yet, to every peer.
+     */
+    @Scheduled(fixedDelayString = "${application.cache.invalidation.batch-interval-ms:200}")
+    public void sendBatches() {
+        CacheInvalidationDTO batch = new CacheInvalidationDTO();
+        synchronized (pending) {
+            batch.addAll(pending);
+            pending.removeAll(batch);
+        }
+        Registration self = registration.getIfAvailable();
+        if (self == null) {
+            // Not registered in discovery, so there is no peer to send the evictions to
+            return;
+        }
+        Map<String, ServiceInstance> instances = new HashMap<>();
+        discoveryClient
+            .getInstances(self.getServiceId())
+            .stream()
+            .filter(instance -> !Objects.equals(instance.getInstanceId(), self.getInstanceId()))
+            .forEach(instance -> instances.put(instance.getInstanceId(), instance));
+        // Peers gone from discovery drop their evictions, as they restart with empty caches
+        peers.keySet().retainAll(instances.keySet());
+        String token = null;
+        long now = System.currentTimeMillis();
+        for (ServiceInstance instance : instances.values()) {
+            Peer peer = peers.computeIfAbsent(instance.getInstanceId(), id -> new Peer());
+            CacheInvalidationDTO sent = new CacheInvalidationDTO();
+            synchronized (peer) {
+                peer.unacknowledged.addAll(batch);
+                if (peer.sending || peer.unacknowledged.isEmpty() || now < peer.nextAttempt) {
+                    continue;
+                }
+                peer.sending = true;
+                sent.addAll(peer.unacknowledged);
+            }
+            if (token == null) {
+                token = systemToken();
+            }
+            String peerToken = token;
+            taskExecutor.execute(() -> send(instance, peer, sent, peerToken));
+        }
+    }
+
+    private void send(ServiceInstance instance, Peer peer, CacheInvalidationDTO sent, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        try {
+            restTemplate.postForEntity(instance.getUri().resolve(PEER_INVALIDATION_PATH), new HttpEntity<>(sent, headers), Void.class);
+            synchronized (peer) {
+                peer.unacknowledged.removeAll(sent);
+                peer.failures = 0;
+                peer.nextAttempt = 0;
+                peer.sending = false;
+            }
+        } catch (RestClientException e) {
+            int failures;
+            synchronized (peer) {
+                failures = ++peer.failures;
+                long backoff = invalidationProperties.getRetryBackoffMs() << Math.min(failures - 1, 16);
+                peer.nextAttempt = System.currentTimeMillis() + Math.min(backoff, invalidationProperties.getMaxRetryBackoffMs());
+                peer.sending = false;
+            }
+            log.warn("Could not send cache evictions to {}, attempt {}: {}", instance.getUri(), failures, e.getMessage());
+        }
+    }
+
+    /**
+     * @return a token authenticating this instance to its peers, which share its JWT secret
+     */
+    private String systemToken() {
+        return tokenProvider.createToken(
+            new UsernamePasswordAuthenticationToken(
+                SYSTEM_PRINCIPAL,
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.CACHE_PEER))
+            ),
+            SYSTEM_TOKEN_VALIDITY_MS
+        );
+    }
+
+    private static final class Peer {
+
+        private final CacheInvalidationDTO unacknowledged = new CacheInvalidationDTO();
+        private int failures;
+        private long nextAttempt;
+        private boolean sending;
+    }
+}
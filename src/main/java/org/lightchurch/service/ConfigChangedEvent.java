@@ -0,0 +1,48 @@
+package org.lightchurch.service;
+
+/**
+ * Published by {@link ConfigService} when a config is created, updated or deleted.
+ * <p>
+ * Listeners interested in committed changes only should use
+ * {@link org.springframework.transaction.event.TransactionalEventListener}.
+ */
+public class ConfigChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+
+    private final String name;
+
+    private final long version;
+
+    private final Type type;
+
+    public ConfigChangedEvent(String name, long version, Type type) {
+        this.name = name;
+        this.version = version;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the config store version at which the change was made
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigChangedEvent{name='" + name + "', version=" + version + ", type=" + type + "}";
+    }
+}
@@ -0,0 +1,247 @@
+package org.lightchurch.service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.service.dto.ConfigDTO;
+import org.lightchurch.service.dto.ConfigDeltaDTO;
+import org.lightchurch.service.dto.ConfigEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service class pushing the changes of the config store to subscribers.
+ * <p>
+ * Changes are read from the config store in version order, from the last version pushed up to the store version read
+ * before them, so that the events of every subscriber are gap-free and their versions can be used to resume. They are
+ * read as soon as a change is committed on this instance, and periodically for the changes committed by the others.
+ * <p>
+ * Every subscriber has a bounded buffer drained from the task executor, so that a slow subscriber never holds up the
+ * others. Pending events of the same config are coalesced into the latest one. When the buffer overflows anyway, e.g.
+ * on a replay or a bulk change of more configs than it holds, its events are replaced with a single
+ * {@link ConfigEventDTO.Type#RESYNC} event: the subscriber stays subscribed, and catches up on the skipped changes with
+ * {@code GET /configs?sinceVersion=}.
+ */
+@Service
+public class ConfigEventService {
+
+    /**
+     * Receives the events of a subscription.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * @param event the event to deliver
+         * @throws IOException if the subscriber is gone, which cancels the subscription
+         */
+        void send(ConfigEventDTO event) throws IOException;
+    }
+
+    private final Logger log = LoggerFactory.getLogger(ConfigEventService.class);
+
+    private final ConfigService configService;
+
+    private final Executor taskExecutor;
+
+    private final int bufferSize;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean pumpScheduled = new AtomicBoolean();
+
+    private final Object pumpLock = new Object();
+
+    /**
+     * The config store version up to which changes were pushed, {@code -1} while there are no subscriptions.
+     */
+    private long position = -1;
+
+    public ConfigEventService(
+        ConfigService configService,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.configService = configService;
+        this.taskExecutor = taskExecutor;
+        this.bufferSize = applicationProperties.getConfigs().getEvents().getBufferSize();
+    }
+
+    /**
+     * Subscribes to the changes of the config store. Cancelling the returned subscription stops the events.
+     *
+     * @param lastEventId the version of the last event received by a resuming subscriber, {@code null} for a new one
+     * @param sink        receives the events
+     * @return the subscription
+     */
+    public Subscription subscribe(Long lastEventId, Sink sink) {
+        Subscription subscription = new Subscription(sink);
+        synchronized (pumpLock) {
+            if (position < 0) {
+                position = configService.getStoreVersion();
+            }
+            // Replayed under the pump lock, so that no change is pushed in between
+            if (lastEventId != null && lastEventId < position) {
+                toEvents(configService.getConfigChanges(lastEventId), position).forEach(subscription::offer);
+            }
+            subscriptions.add(subscription);
+        }
+        log.debug("Subscribed to config events from version {}, {} subscriptions", lastEventId, subscriptions.size());
+        // The replayed events are handed to the sink before returning, from the subscribing thread
+        subscription.drain();
+        return subscription;
+    }
+
+    /**
+     * Pushes a change committed on this instance, from the task executor so that the committing thread does not read
+     * the changes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConfigChanged(ConfigChangedEvent event) {
+        if (!subscriptions.isEmpty() && pumpScheduled.compareAndSet(false, true)) {
+            taskExecutor.execute(this::pump);
+        }
+    }
+
+    /**
+     * Picks up the changes committed by other instances.
+     */
+    @Scheduled(fixedDelayString = "${application.configs.events.poll-interval-ms:1000}")
+    public void pollChanges() {
+        if (!subscriptions.isEmpty()) {
+            pump();
+        }
+    }
+
+    private void pump() {
+        pumpScheduled.set(false);
+        synchronized (pumpLock) {
+            if (subscriptions.isEmpty()) {
+                position = -1;
+                return;
+            }
+            ConfigDeltaDTO delta = configService.getConfigChanges(position);
+            if (delta.getVersion() == position) {
+                return;
+            }
+            List<ConfigEventDTO> events = toEvents(delta, delta.getVersion());
+            position = delta.getVersion();
+            log.debug("Pushing {} config events up to version {} to {} subscriptions", events.size(), position, subscriptions.size());
+            subscriptions.forEach(subscription -> events.forEach(subscription::offer));
+        }
+    }
+
+    /**
+     * @param delta       changes since a version
+     * @param upToVersion changes newer than this version are left out, as older ones committed meanwhile may be missing
+     * @return the changes as events, in version order
+     */
+    private static List<ConfigEventDTO> toEvents(ConfigDeltaDTO delta, long upToVersion) {
+        List<ConfigEventDTO> events = new ArrayList<>();
+        if (delta.isFull()) {
+            events.add(new ConfigEventDTO(ConfigEventDTO.Type.RESET, null, delta.getVersion(), null));
+        }
+        for (ConfigDTO config : delta.getConfigs()) {
+            if (config.getVersion() <= upToVersion) {
+                ConfigEventDTO.Type type = config.getVersion().equals(config.getCreatedVersion())
+                    ? ConfigEventDTO.Type.CREATED
+                    : ConfigEventDTO.Type.UPDATED;
+                events.add(new ConfigEventDTO(type, config.getName(), config.getVersion(), config));
+            }
+        }
+        delta
+            .getDeleted()
+            .stream()
+            .filter(tombstone -> tombstone.getVersion() <= upToVersion)
+            .forEach(
+                tombstone -> events.add(new ConfigEventDTO(ConfigEventDTO.Type.DELETED, tombstone.getName(), tombstone.getVersion(), null))
+            );
+        // The reset event, with the version of the full snapshot, stays first
+        events.sort(Comparator.comparingLong(event -> event.getType() == ConfigEventDTO.Type.RESET ? -1 : event.getVersion()));
+        return events;
+    }
+
+    /**
+     * A subscriber and its pending events.
+     */
+    public final class Subscription {
+
+        private final Sink sink;
+
+        /**
+         * config name -> pending event, in version order.
+         */
+        private final LinkedHashMap<String, ConfigEventDTO> pending = new LinkedHashMap<>();
+
+        /**
+         * Set from the start, as the subscribing thread drains the replayed events itself.
+         */
+        private boolean draining = true;
+
+        private boolean cancelled;
+
+        private Subscription(Sink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Stops the events of this subscription.
+         */
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                pending.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        private void offer(ConfigEventDTO event) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                // Removed first, so that the latest event of a config takes its place in version order
+                pending.remove(event.getName());
+                pending.put(event.getName(), event);
+                if (pending.size() > bufferSize) {
+                    // The events are offered in version order, so the marker moves the subscriber past all the skipped ones
+                    log.debug("Config events subscriber {} events behind, resyncing up to version {}", pending.size(), event.getVersion());
+                    pending.clear();
+                    pending.put(null, new ConfigEventDTO(ConfigEventDTO.Type.RESYNC, null, event.getVersion(), null));
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            taskExecutor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                ConfigEventDTO event;
+                synchronized (this) {
+                    Iterator<ConfigEventDTO> iterator = pending.values().iterator();
+                    if (cancelled || !iterator.hasNext()) {
+                        draining = false;
+                        return;
+                    }
+                    event = iterator.next();
+                    iterator.remove();
+                }
+                try {
+                    sink.send(event);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Config events subscriber gone: {}", e.getMessage());
+                    cancel();
+                }
+            }
+        }
+    }
+}
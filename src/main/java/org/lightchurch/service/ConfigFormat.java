@@ -0,0 +1,23 @@
+package org.lightchurch.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The wire formats the config payloads are encoded in, negotiated with the {@code Accept} header: JSON, and the binary
+ * Smile and CBOR encodings of the same data model, smaller and cheaper to parse for the clients using Jackson.
+ */
+public enum ConfigFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    SMILE(new MediaType("application", "x-jackson-smile")),
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    ConfigFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,164 @@
+package org.lightchurch.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.domain.Config;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the metadata of the {@link Config configs} as frames of one header byte followed by the UTF-8 JSON: as is
+ * ({@link #PLAIN}), or Deflate-compressed ({@link #DEFLATE}) when it has at least
+ * {@code application.configs.storage.compression-min-size} bytes and compressing makes it smaller.
+ * <p>
+ * Jackson generates the JSON straight into the frame after its header, and parses it from the frame, through the
+ * inflater for compressed frames, so that the metadata is never held whole in another form.
+ * <p>
+ * Metadata stored before the codec has no header: a JSON object starts with an opening brace, never with a header
+ * byte, so it is read as is.
+ * <p>
+ * Publishes the ratio of JSON to stored bytes of every write, and the time spent encoding and decoding.
+ */
+@Component
+public class ConfigMetadataCodec {
+
+    static final byte PLAIN = 0;
+    static final byte DEFLATE = 1;
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final int compressionMinSize;
+    private final int compressionLevel;
+    private final DistributionSummary compressionRatio;
+    private final Timer encodeTimer;
+    private final Timer decodeTimer;
+
+    public ConfigMetadataCodec(ObjectMapper objectMapper, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.writer = objectMapper.writerFor(METADATA_TYPE);
+        this.reader = objectMapper.readerFor(METADATA_TYPE);
+        ApplicationProperties.Configs.Storage storage = applicationProperties.getConfigs().getStorage();
+        this.compressionMinSize = storage.getCompressionMinSize();
+        this.compressionLevel = storage.getCompressionLevel();
+        this.compressionRatio =
+            DistributionSummary
+                .builder("configs.metadata.compression.ratio")
+                .description("The size of the metadata JSON divided by its stored size, for every write")
+                .register(meterRegistry);
+        this.encodeTimer = codecTimer("encode", meterRegistry);
+        this.decodeTimer = codecTimer("decode", meterRegistry);
+    }
+
+    private static Timer codecTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer
+            .builder("configs.metadata.codec")
+            .tag("operation", operation)
+            .description("The time spent converting the metadata from and to its stored frames")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return the frame storing {@code metaData}, {@code null} for {@code null}
+     */
+    public byte[] encode(Map<String, Object> metaData) {
+        if (metaData == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        FrameOutputStream frame = new FrameOutputStream(PLAIN, 1024);
+        try {
+            writer.writeValue(frame, metaData);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int jsonLength = frame.size() - 1;
+        if (jsonLength >= compressionMinSize) {
+            FrameOutputStream deflated = deflate(frame);
+            if (deflated.size() < frame.size()) {
+                frame = deflated;
+            }
+        }
+        encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        compressionRatio.record((double) jsonLength / frame.size());
+        return frame.toFrame();
+    }
+
+    private FrameOutputStream deflate(FrameOutputStream plain) {
+        FrameOutputStream frame = new FrameOutputStream(DEFLATE, plain.size() / 4 + 64);
+        Deflater deflater = new Deflater(compressionLevel);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(frame, deflater, 8192)) {
+            plain.writeJsonTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return frame;
+    }
+
+    /**
+     * @return the metadata stored in {@code frame}, {@code null} for {@code null}
+     * @throws IOException if the frame does not hold a JSON object
+     */
+    public Map<String, Object> decode(byte[] frame) throws IOException {
+        if (frame == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try (InputStream json = open(frame)) {
+            return reader.readValue(json);
+        } finally {
+            decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return the UTF-8 JSON stored in {@code frame}, inflated as it is read for compressed frames
+     */
+    public static InputStream open(byte[] frame) {
+        if (frame.length == 0 || (frame[0] != PLAIN && frame[0] != DEFLATE)) {
+            return new ByteArrayInputStream(frame);
+        }
+        InputStream json = new ByteArrayInputStream(frame, 1, frame.length - 1);
+        return frame[0] == PLAIN ? json : new InflaterInputStream(json);
+    }
+
+    /**
+     * A frame being written: its header byte, then the bytes written to it.
+     */
+    private static final class FrameOutputStream extends ByteArrayOutputStream {
+
+        FrameOutputStream(byte header, int size) {
+            super(size);
+            write(header);
+        }
+
+        void writeJsonTo(OutputStream out) throws IOException {
+            out.write(buf, 1, count - 1);
+        }
+
+        /**
+         * @return the frame, without a copy when the buffer holds exactly the frame
+         */
+        byte[] toFrame() {
+            return count == buf.length ? buf : toByteArray();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.lightchurch.service;
+
+public class ConfigNameAlreadyUsedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConfigNameAlreadyUsedException() {
+        super("Config name already used!");
+    }
+}
@@ -0,0 +1,14 @@
+package org.lightchurch.service;
+
+/**
+ * Thrown when a patch does not apply to the current metadata of a config: it addresses a missing value, or one of its
+ * {@code test} operations fails.
+ */
+public class ConfigPatchConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConfigPatchConflictException(String message) {
+        super(message);
+    }
+}
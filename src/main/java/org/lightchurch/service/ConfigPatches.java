@@ -0,0 +1,231 @@
+package org.lightchurch.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies patches to the metadata of a config, as a JSON tree.
+ * <p>
+ * Two formats are supported: the JSON Merge Patch of RFC 7386 ({@code application/merge-patch+json}), an object
+ * mirroring the metadata with {@code null} removing a key, and the JSON Patch of RFC 6902
+ * ({@code application/json-patch+json}), an array of {@code add}, {@code remove}, {@code replace}, {@code move},
+ * {@code copy} and {@code test} operations addressing values with JSON Pointers. The paths of both are relative to the
+ * metadata root.
+ * <p>
+ * Patches modify the tree they are applied to: it must be a copy owned by the caller.
+ */
+public final class ConfigPatches {
+
+    private ConfigPatches() {}
+
+    /**
+     * @param target the tree to patch
+     * @param patch  a JSON Merge Patch
+     * @return the patched tree
+     */
+    public static JsonNode mergePatch(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject() ? (ObjectNode) target : JsonNodeFactory.instance.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), mergePatch(result.get(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies the operations of a JSON Patch in order, all or none of them being applied to the stored metadata as they
+     * are applied to a copy of it.
+     *
+     * @param target the tree to patch
+     * @param patch  a JSON Patch
+     * @return the patched tree
+     * @throws InvalidConfigPatchException  if the patch is malformed
+     * @throws ConfigPatchConflictException if an operation addresses a missing value or a {@code test} fails
+     */
+    public static JsonNode jsonPatch(JsonNode target, JsonNode patch) {
+        if (!patch.isArray()) {
+            throw new InvalidConfigPatchException("A JSON Patch must be an array of operations");
+        }
+        JsonNode result = target;
+        for (JsonNode operation : patch) {
+            result = apply(result, operation);
+        }
+        return result;
+    }
+
+    private static JsonNode apply(JsonNode target, JsonNode operation) {
+        String op = text(operation, "op");
+        List<String> path = pointer(text(operation, "path"));
+        switch (op) {
+            case "add":
+                return add(target, path, value(operation));
+            case "remove":
+                return remove(target, path);
+            case "replace":
+                return replace(target, path, value(operation));
+            case "move":
+                return move(target, pointer(text(operation, "from")), path);
+            case "copy":
+                return add(target, path, get(target, pointer(text(operation, "from"))).deepCopy());
+            case "test":
+                if (!get(target, path).equals(ConfigPatches::compare, value(operation))) {
+                    throw new ConfigPatchConflictException("Test failed at " + operation.get("path").asText());
+                }
+                return target;
+            default:
+                throw new InvalidConfigPatchException("Unknown JSON Patch operation " + op);
+        }
+    }
+
+    private static JsonNode add(JsonNode target, List<String> path, JsonNode value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        JsonNode parent = get(target, path.subList(0, path.size() - 1));
+        String token = path.get(path.size() - 1);
+        if (parent.isObject()) {
+            ((ObjectNode) parent).set(token, value);
+        } else if (parent.isArray()) {
+            ArrayNode array = (ArrayNode) parent;
+            if (token.equals("-")) {
+                array.add(value);
+            } else {
+                array.insert(index(array, token, array.size()), value);
+            }
+        } else {
+            throw noValue(path);
+        }
+        return target;
+    }
+
+    private static JsonNode move(JsonNode target, List<String> from, List<String> path) {
+        JsonNode value = get(target, from);
+        if (from.equals(path)) {
+            return target;
+        }
+        if (path.size() > from.size() && path.subList(0, from.size()).equals(from)) {
+            throw new InvalidConfigPatchException("Cannot move a value into itself");
+        }
+        return add(remove(target, from), path, value);
+    }
+
+    private static JsonNode remove(JsonNode target, List<String> path) {
+        if (path.isEmpty()) {
+            throw new InvalidConfigPatchException("Cannot remove the metadata root");
+        }
+        JsonNode parent = get(target, path.subList(0, path.size() - 1));
+        String token = path.get(path.size() - 1);
+        if (parent.isObject() && parent.has(token)) {
+            ((ObjectNode) parent).remove(token);
+        } else if (parent.isArray()) {
+            ((ArrayNode) parent).remove(index(parent, token, parent.size() - 1));
+        } else {
+            throw noValue(path);
+        }
+        return target;
+    }
+
+    private static JsonNode replace(JsonNode target, List<String> path, JsonNode value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        JsonNode parent = get(target, path.subList(0, path.size() - 1));
+        String token = path.get(path.size() - 1);
+        if (parent.isObject() && parent.has(token)) {
+            ((ObjectNode) parent).set(token, value);
+        } else if (parent.isArray()) {
+            ((ArrayNode) parent).set(index(parent, token, parent.size() - 1), value);
+        } else {
+            throw noValue(path);
+        }
+        return target;
+    }
+
+    private static JsonNode get(JsonNode target, List<String> path) {
+        JsonNode node = target;
+        for (int i = 0; i < path.size(); i++) {
+            String token = path.get(i);
+            if (node.isObject() && node.has(token)) {
+                node = node.get(token);
+            } else if (node.isArray()) {
+                node = node.get(index(node, token, node.size() - 1));
+            } else {
+                throw noValue(path.subList(0, i + 1));
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @return the array index of {@code token}, between 0 and {@code max}
+     */
+    private static int index(JsonNode array, String token, int max) {
+        if (!token.matches("0|[1-9][0-9]{0,8}") || Integer.parseInt(token) > max) {
+            throw new ConfigPatchConflictException("No element " + token + " in an array of " + array.size());
+        }
+        return Integer.parseInt(token);
+    }
+
+    /**
+     * @return the unescaped reference tokens of a JSON Pointer
+     */
+    private static List<String> pointer(String pointer) {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (!pointer.startsWith("/")) {
+            throw new InvalidConfigPatchException("Invalid JSON Pointer " + pointer);
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static String text(JsonNode operation, String member) {
+        JsonNode value = operation.get(member);
+        if (value == null || !value.isTextual()) {
+            throw new InvalidConfigPatchException("JSON Patch operation without \"" + member + "\": " + operation);
+        }
+        return value.asText();
+    }
+
+    private static JsonNode value(JsonNode operation) {
+        JsonNode value = operation.get("value");
+        if (value == null) {
+            throw new InvalidConfigPatchException("JSON Patch operation without \"value\": " + operation);
+        }
+        return value;
+    }
+
+    private static ConfigPatchConflictException noValue(List<String> path) {
+        StringBuilder pointer = new StringBuilder();
+        path.forEach(token -> pointer.append('/').append(token.replace("~", "~0").replace("/", "~1")));
+        return new ConfigPatchConflictException("No value at " + pointer);
+    }
+
+    /**
+     * Numbers are equal if their values are, whatever their representation.
+     */
+    private static int compare(JsonNode a, JsonNode b) {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue());
+        }
+        return a.equals(b) ? 0 : 1;
+    }
+}
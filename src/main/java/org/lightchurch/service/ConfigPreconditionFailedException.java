@@ -0,0 +1,13 @@
+package org.lightchurch.service;
+
+/**
+ * Thrown when a conditional write of a config finds it at another version than the one expected.
+ */
+public class ConfigPreconditionFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConfigPreconditionFailedException(String name) {
+        super("Config " + name + " is not at the expected version");
+    }
+}
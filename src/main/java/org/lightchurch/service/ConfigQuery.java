@@ -0,0 +1,473 @@
+package org.lightchurch.service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A parsed search query over config metadata, evaluated against the {@link ConfigSearchIndex}.
+ * <p>
+ * The query language combines predicates on the dot separated paths below the metadata root with {@code AND}, {@code OR}
+ * and parentheses, {@code AND} binding tighter:
+ * <pre>
+ * limits.cpu.value = "300m" AND (monitoring.enabled = true OR replicas &gt;= 3)
+ * region IN (eu, us) AND owner EXISTS
+ * </pre>
+ * Supported predicates are {@code =}, {@code <}, {@code <=}, {@code >}, {@code >=}, {@code IN (...)} and {@code EXISTS}.
+ * Comparisons are numeric, and only match values that are numbers. A leading {@code metadata.} is ignored in paths.
+ * <p>
+ * A query is parsed once into a plan: every {@code AND} is driven by its most selective operand, looked up in the index,
+ * and its other operands are checked against the entries of the candidate configs only. {@link #toString()} is the
+ * normalized form of the query, equal for queries differing only in spacing, case of keywords or order of operands.
+ */
+public abstract class ConfigQuery {
+
+    private static final String METADATA_ROOT = "metadata.";
+
+    /**
+     * The maximum nesting of parentheses, so that a crafted query cannot exhaust the stack of the parser.
+     */
+    static final int MAX_DEPTH = 32;
+
+    /**
+     * The index data a query is evaluated against.
+     */
+    interface Index {
+        /**
+         * @return value -> names of the configs holding it at {@code path}
+         */
+        Map<String, Set<String>> postings(String path);
+
+        /**
+         * @return path -> values of the config {@code name}
+         */
+        Map<String, Set<String>> entries(String name);
+    }
+
+    private ConfigQuery() {}
+
+    /**
+     * @param query the query to parse
+     * @return the parsed query
+     * @throws InvalidConfigQueryException if the query is not valid
+     */
+    public static ConfigQuery parse(String query) {
+        return new Parser(query).parse();
+    }
+
+    /**
+     * Builds the query of the original search parameters: every parameter is an equality, on the path following its
+     * first segment, and all of them must hold.
+     *
+     * @param params path -> value
+     * @return the query
+     * @throws InvalidConfigQueryException if there are no parameters
+     */
+    public static ConfigQuery allEqual(Map<String, String> params) {
+        if (params.isEmpty()) {
+            throw new InvalidConfigQueryException("Empty search query");
+        }
+        List<ConfigQuery> predicates = params
+            .entrySet()
+            .stream()
+            .map(
+                entry ->
+                    new Predicate(
+                        entry.getKey().substring(entry.getKey().indexOf('.') + 1),
+                        Operator.EQ,
+                        Collections.singletonList(entry.getValue())
+                    )
+            )
+            .collect(Collectors.toList());
+        return predicates.size() == 1 ? predicates.get(0) : new And(predicates);
+    }
+
+    /**
+     * @return the paths the query depends on
+     */
+    public abstract Set<String> getPaths();
+
+    /**
+     * @return an upper bound of the number of configs matched, as cheap to compute as possible
+     */
+    abstract long estimate(Index index);
+
+    /**
+     * @return the names of the configs matched
+     */
+    abstract Set<String> evaluate(Index index);
+
+    /**
+     * @param entries path -> values of a config
+     * @return whether the config is matched
+     */
+    abstract boolean matches(Map<String, Set<String>> entries);
+
+    private enum Operator {
+        EQ("="),
+        LT("<"),
+        LTE("<="),
+        GT(">"),
+        GTE(">="),
+        IN("IN"),
+        EXISTS("EXISTS");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    private static final class Predicate extends ConfigQuery {
+
+        private final String path;
+        private final Operator operator;
+        private final List<String> values;
+        private final BigDecimal number;
+
+        private Predicate(String path, Operator operator, List<String> values) {
+            this.path = path.startsWith(METADATA_ROOT) ? path.substring(METADATA_ROOT.length()) : path;
+            this.operator = operator;
+            this.values = operator == Operator.IN ? values.stream().distinct().sorted().collect(Collectors.toList()) : values;
+            this.number = isComparison() ? toNumber(values.get(0)) : null;
+            if (isComparison() && number == null) {
+                throw new InvalidConfigQueryException("Not a number: " + values.get(0));
+            }
+        }
+
+        private boolean isComparison() {
+            return operator == Operator.LT || operator == Operator.LTE || operator == Operator.GT || operator == Operator.GTE;
+        }
+
+        @Override
+        public Set<String> getPaths() {
+            return Collections.singleton(path);
+        }
+
+        @Override
+        long estimate(Index index) {
+            Map<String, Set<String>> postings = index.postings(path);
+            switch (operator) {
+                case EQ:
+                    return postings.getOrDefault(values.get(0), Collections.emptySet()).size();
+                case IN:
+                    return values.stream().mapToLong(value -> postings.getOrDefault(value, Collections.emptySet()).size()).sum();
+                default:
+                    return postings.values().stream().mapToLong(Set::size).sum();
+            }
+        }
+
+        @Override
+        Set<String> evaluate(Index index) {
+            Map<String, Set<String>> postings = index.postings(path);
+            Set<String> names = new HashSet<>();
+            if (operator == Operator.EQ || operator == Operator.IN) {
+                values.forEach(value -> names.addAll(postings.getOrDefault(value, Collections.emptySet())));
+            } else {
+                postings.forEach(
+                    (value, holders) -> {
+                        if (matches(value)) {
+                            names.addAll(holders);
+                        }
+                    }
+                );
+            }
+            return names;
+        }
+
+        @Override
+        boolean matches(Map<String, Set<String>> entries) {
+            Set<String> held = entries.get(path);
+            return held != null && held.stream().anyMatch(this::matches);
+        }
+
+        private boolean matches(String value) {
+            switch (operator) {
+                case EQ:
+                case IN:
+                    return values.contains(value);
+                case EXISTS:
+                    return true;
+                default:
+                    BigDecimal held = toNumber(value);
+                    if (held == null) {
+                        return false;
+                    }
+                    int comparison = held.compareTo(number);
+                    return (
+                        (operator == Operator.LT && comparison < 0) ||
+                        (operator == Operator.LTE && comparison <= 0) ||
+                        (operator == Operator.GT && comparison > 0) ||
+                        (operator == Operator.GTE && comparison >= 0)
+                    );
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (operator) {
+                case EXISTS:
+                    return path + " EXISTS";
+                case IN:
+                    return path + " IN (" + values.stream().map(Predicate::quote).collect(Collectors.joining(", ")) + ")";
+                default:
+                    return path + " " + operator.symbol + " " + quote(values.get(0));
+            }
+        }
+
+        private static BigDecimal toNumber(String value) {
+            try {
+                return new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String quote(String value) {
+            return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+    }
+
+    private abstract static class Composite extends ConfigQuery {
+
+        protected final List<ConfigQuery> operands;
+
+        private Composite(List<ConfigQuery> operands) {
+            // Flattened and sorted, so that equivalent queries have the same normalized form
+            List<ConfigQuery> flattened = new ArrayList<>();
+            operands.forEach(
+                operand -> {
+                    if (operand.getClass() == getClass()) {
+                        flattened.addAll(((Composite) operand).operands);
+                    } else {
+                        flattened.add(operand);
+                    }
+                }
+            );
+            this.operands = flattened.stream().sorted(Comparator.comparing(ConfigQuery::toString)).collect(Collectors.toList());
+        }
+
+        @Override
+        public Set<String> getPaths() {
+            Set<String> paths = new HashSet<>();
+            operands.forEach(operand -> paths.addAll(operand.getPaths()));
+            return paths;
+        }
+
+        protected String join(String keyword) {
+            return operands.stream().map(ConfigQuery::toString).collect(Collectors.joining(" " + keyword + " ", "(", ")"));
+        }
+    }
+
+    private static final class And extends Composite {
+
+        private And(List<ConfigQuery> operands) {
+            super(operands);
+        }
+
+        @Override
+        long estimate(Index index) {
+            return operands.stream().mapToLong(operand -> operand.estimate(index)).min().orElse(0);
+        }
+
+        @Override
+        Set<String> evaluate(Index index) {
+            ConfigQuery driver = operands.stream().min(Comparator.comparingLong(operand -> operand.estimate(index))).orElseThrow();
+            Set<String> names = driver.evaluate(index);
+            for (ConfigQuery operand : operands) {
+                if (operand != driver) {
+                    names.removeIf(name -> !operand.matches(index.entries(name)));
+                }
+            }
+            return names;
+        }
+
+        @Override
+        boolean matches(Map<String, Set<String>> entries) {
+            return operands.stream().allMatch(operand -> operand.matches(entries));
+        }
+
+        @Override
+        public String toString() {
+            return join("AND");
+        }
+    }
+
+    private static final class Or extends Composite {
+
+        private Or(List<ConfigQuery> operands) {
+            super(operands);
+        }
+
+        @Override
+        long estimate(Index index) {
+            return operands.stream().mapToLong(operand -> operand.estimate(index)).sum();
+        }
+
+        @Override
+        Set<String> evaluate(Index index) {
+            Set<String> names = new HashSet<>();
+            operands.forEach(operand -> names.addAll(operand.evaluate(index)));
+            return names;
+        }
+
+        @Override
+        boolean matches(Map<String, Set<String>> entries) {
+            return operands.stream().anyMatch(operand -> operand.matches(entries));
+        }
+
+        @Override
+        public String toString() {
+            return join("OR");
+        }
+    }
+
+    /**
+     * Recursive descent parser of the query language.
+     */
+    private static final class Parser {
+
+        private final String query;
+        private int position;
+        private int depth;
+
+        private Parser(String query) {
+            this.query = query;
+        }
+
+        private ConfigQuery parse() {
+            ConfigQuery parsed = parseOr();
+            skipWhitespace();
+            if (position < query.length()) {
+                throw error("Unexpected '" + query.charAt(position) + "'");
+            }
+            return parsed;
+        }
+
+        private ConfigQuery parseOr() {
+            List<ConfigQuery> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (acceptKeyword("OR")) {
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Or(operands);
+        }
+
+        private ConfigQuery parseAnd() {
+            List<ConfigQuery> operands = new ArrayList<>();
+            operands.add(parsePrimary());
+            while (acceptKeyword("AND")) {
+                operands.add(parsePrimary());
+            }
+            return operands.size() == 1 ? operands.get(0) : new And(operands);
+        }
+
+        private ConfigQuery parsePrimary() {
+            if (accept("(")) {
+                if (++depth > MAX_DEPTH) {
+                    throw error("Parentheses nested deeper than " + MAX_DEPTH);
+                }
+                ConfigQuery nested = parseOr();
+                expect(")");
+                depth--;
+                return nested;
+            }
+            String path = word();
+            if (path == null) {
+                throw error("Expected a path");
+            }
+            if (acceptKeyword("EXISTS")) {
+                return new Predicate(path, Operator.EXISTS, Collections.emptyList());
+            }
+            if (acceptKeyword("IN")) {
+                expect("(");
+                List<String> values = new ArrayList<>();
+                do {
+                    values.add(value());
+                } while (accept(","));
+                expect(")");
+                return new Predicate(path, Operator.IN, values);
+            }
+            for (Operator operator : new Operator[] { Operator.LTE, Operator.GTE, Operator.LT, Operator.GT, Operator.EQ }) {
+                if (accept(operator.symbol)) {
+                    return new Predicate(path, operator, Collections.singletonList(value()));
+                }
+            }
+            throw error("Expected an operator after " + path);
+        }
+
+        private String value() {
+            skipWhitespace();
+            if (position < query.length() && query.charAt(position) == '"') {
+                StringBuilder value = new StringBuilder();
+                position++;
+                while (position < query.length() && query.charAt(position) != '"') {
+                    char c = query.charAt(position++);
+                    if (c == '\\' && position < query.length()) {
+                        c = query.charAt(position++);
+                    }
+                    value.append(c);
+                }
+                expect("\"");
+                return value.toString();
+            }
+            String value = word();
+            if (value == null) {
+                throw error("Expected a value");
+            }
+            return value;
+        }
+
+        private String word() {
+            skipWhitespace();
+            int start = position;
+            while (position < query.length() && isWordChar(query.charAt(position))) {
+                position++;
+            }
+            return position > start ? query.substring(start, position) : null;
+        }
+
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-' || c == ':' || c == '/';
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (
+                query.regionMatches(true, position, keyword, 0, keyword.length()) &&
+                (end == query.length() || !isWordChar(query.charAt(end)))
+            ) {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean accept(String symbol) {
+            skipWhitespace();
+            if (query.startsWith(symbol, position)) {
+                position += symbol.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            if (!accept(symbol)) {
+                throw error("Expected '" + symbol + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < query.length() && Character.isWhitespace(query.charAt(position))) {
+                position++;
+            }
+        }
+
+        private InvalidConfigQueryException error(String message) {
+            return new InvalidConfigQueryException(message + " at position " + position + " of search query: " + query);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package org.lightchurch.service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.domain.Config;
+import org.lightchurch.repository.ConfigsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Inverted index of config metadata, mapping every leaf path and value to the names of the configs holding it.
+ * <p>
+ * Paths are the dot separated keys below the metadata root, e.g. {@code limits.cpu.value}. The index is built once
+ * when the application starts and is then maintained by {@link ConfigService} on create, update and delete, so that
+ * lookups neither scan the configs table nor parse any metadata. Configs written through JPA without
+ * {@link ConfigService}, e.g. with {@link ConfigsRepository}, are indexed when Hibernate flushes them. Rows changed
+ * with SQL, e.g. by a migration, are only indexed again when the application starts or when
+ * {@link ConfigService#refreshConfigs} is called for them.
+ * <p>
+ * Query results are kept in a bounded LRU cache keyed by the normalized query. A change of a config only drops the
+ * cached results of the queries on the paths whose values changed.
+ */
+@Component
+public class ConfigSearchIndex {
+
+    private final Logger log = LoggerFactory.getLogger(ConfigSearchIndex.class);
+
+    private final ConfigsRepository configsRepository;
+
+    private final ConfigMetadataCodec configMetadataCodec;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * path -> value -> config names.
+     */
+    private final Map<String, Map<String, Set<String>>> postings = new HashMap<>();
+
+    /**
+     * config name -> path -> values, used to remove the previous entries of a config.
+     */
+    private final Map<String, Map<String, Set<String>>> entriesByName = new HashMap<>();
+
+    /**
+     * normalized query -> cached result, least recently used first. Guarded by itself, and only changed while holding
+     * the read or the write lock so that a result computed before a change is never cached after it.
+     */
+    private final LinkedHashMap<String, CachedResult> results;
+
+    /**
+     * path -> normalized queries depending on it, guarded by {@link #results}.
+     */
+    private final Map<String, Set<String>> resultsByPath = new HashMap<>();
+
+    public ConfigSearchIndex(
+        ConfigsRepository configsRepository,
+        ConfigMetadataCodec configMetadataCodec,
+        EntityManagerFactory entityManagerFactory,
+        ApplicationProperties applicationProperties
+    ) {
+        this.configsRepository = configsRepository;
+        this.configMetadataCodec = configMetadataCodec;
+        int cacheSize = applicationProperties.getConfigs().getSearch().getCacheSize();
+        this.results =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                    if (size() > cacheSize) {
+                        unlinkResult(eldest.getKey(), eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Registers the listener indexing the configs written through JPA but not through {@link ConfigService}.
+     */
+    @PostConstruct
+    public void registerEntityListener() {
+        EntityWriteListener listener = new EntityWriteListener();
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    /**
+     * Builds the index from the configs currently stored in the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Config> configs = configsRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            entriesByName.clear();
+            synchronized (results) {
+                results.clear();
+                resultsByPath.clear();
+            }
+            for (Config config : configs) {
+                try {
+                    add(config.getName(), flatten(configMetadataCodec.decode(config.getMetaData())));
+                } catch (IOException e) {
+                    log.warn("Skipping config {} with unreadable metadata: {}", config.getName(), e.getMessage());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Indexed {} configs", configs.size());
+    }
+
+    /**
+     * @param query the query to evaluate
+     * @return names of the configs matched by {@code query}
+     */
+    public Set<String> search(ConfigQuery query) {
+        String key = query.toString();
+        lock.readLock().lock();
+        try {
+            synchronized (results) {
+                CachedResult cached = results.get(key);
+                if (cached != null) {
+                    return cached.names;
+                }
+            }
+            Set<String> names = Collections.unmodifiableSet(
+                query.evaluate(
+                    new ConfigQuery.Index() {
+                        @Override
+                        public Map<String, Set<String>> postings(String path) {
+                            return postings.getOrDefault(path, Collections.emptyMap());
+                        }
+
+                        @Override
+                        public Map<String, Set<String>> entries(String name) {
+                            return entriesByName.getOrDefault(name, Collections.emptyMap());
+                        }
+                    }
+                )
+            );
+            Set<String> paths = query.getPaths();
+            synchronized (results) {
+                results.put(key, new CachedResult(names, paths));
+                paths.forEach(path -> resultsByPath.computeIfAbsent(path, p -> new HashSet<>()).add(key));
+            }
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the result of {@code query} is cached
+     */
+    boolean isCached(ConfigQuery query) {
+        synchronized (results) {
+            return results.containsKey(query.toString());
+        }
+    }
+
+    /**
+     * Replaces the entries of a config with the ones of its new metadata.
+     * <p>
+     * The change is visible immediately and reverted if the surrounding transaction rolls back.
+     *
+     * @param name     name of the config
+     * @param metaData the new metadata of the config
+     */
+    public void index(String name, Map<String, Object> metaData) {
+        indexedInTransaction().ifPresent(names -> names.add(name));
+        apply(name, flatten(metaData));
+    }
+
+    /**
+     * Removes all the entries of a config.
+     * <p>
+     * The change is visible immediately and reverted if the surrounding transaction rolls back.
+     *
+     * @param name name of the config
+     */
+    public void remove(String name) {
+        indexedInTransaction().ifPresent(names -> names.add(name));
+        apply(name, null);
+    }
+
+    /**
+     * @return the names of the configs indexed explicitly in the current transaction, whose writes are then not indexed
+     * again when flushed, empty outside of a transaction. {@link ConfigService} thus indexes a config before flushing it.
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<Set<String>> indexedInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Optional.empty();
+        }
+        Set<String> names = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (names == null) {
+            names = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, names);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(ConfigSearchIndex.this);
+                    }
+                }
+            );
+        }
+        return Optional.of(names);
+    }
+
+    /**
+     * Indexes the configs written through JPA but not through {@link ConfigService}.
+     */
+    private void onWrite(Object entity, boolean deleted) {
+        if (!(entity instanceof Config)) {
+            return;
+        }
+        Config config = (Config) entity;
+        if (indexedInTransaction().map(names -> names.contains(config.getName())).orElse(false)) {
+            return;
+        }
+        if (deleted) {
+            apply(config.getName(), null);
+            return;
+        }
+        try {
+            apply(config.getName(), flatten(configMetadataCodec.decode(config.getMetaData())));
+        } catch (IOException e) {
+            log.warn("Not indexing config {} with unreadable metadata: {}", config.getName(), e.getMessage());
+        }
+    }
+
+    private void apply(String name, Map<String, Set<String>> entries) {
+        Map<String, Set<String>> previous;
+        lock.writeLock().lock();
+        try {
+            previous = entriesByName.get(name);
+            replace(name, entries);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_ROLLED_BACK) {
+                            lock.writeLock().lock();
+                            try {
+                                replace(name, previous);
+                            } finally {
+                                lock.writeLock().unlock();
+                            }
+                        }
+                    }
+                }
+            );
+        }
+    }
+
+    private void replace(String name, Map<String, Set<String>> entries) {
+        Map<String, Set<String>> previous = entriesByName.remove(name);
+        invalidateResults(previous, entries);
+        if (previous != null) {
+            previous.forEach(
+                (path, values) -> {
+                    Map<String, Set<String>> byValue = postings.get(path);
+                    values.forEach(
+                        value -> {
+                            Set<String> names = byValue.get(value);
+                            names.remove(name);
+                            if (names.isEmpty()) byValue.remove(value);
+                        }
+                    );
+                    if (byValue.isEmpty()) postings.remove(path);
+                }
+            );
+        }
+        if (entries != null) {
+            add(name, entries);
+        }
+    }
+
+    /**
+     * Drops the cached results of the queries on the paths whose values differ between two versions of a config.
+     */
+    private void invalidateResults(Map<String, Set<String>> previous, Map<String, Set<String>> entries) {
+        Map<String, Set<String>> before = previous == null ? Collections.emptyMap() : previous;
+        Map<String, Set<String>> after = entries == null ? Collections.emptyMap() : entries;
+        Set<String> changedPaths = new HashSet<>();
+        before.forEach(
+            (path, values) -> {
+                if (!values.equals(after.get(path))) changedPaths.add(path);
+            }
+        );
+        after.keySet().stream().filter(path -> !before.containsKey(path)).forEach(changedPaths::add);
+        synchronized (results) {
+            changedPaths.forEach(
+                path -> {
+                    Set<String> keys = resultsByPath.get(path);
+                    if (keys != null) {
+                        new ArrayList<>(keys).forEach(key -> unlinkResult(key, results.remove(key)));
+                    }
+                }
+            );
+        }
+    }
+
+    private void unlinkResult(String key, CachedResult result) {
+        if (result != null) {
+            result.paths.forEach(
+                path -> {
+                    Set<String> keys = resultsByPath.get(path);
+                    keys.remove(key);
+                    if (keys.isEmpty()) resultsByPath.remove(path);
+                }
+            );
+        }
+    }
+
+    private void add(String name, Map<String, Set<String>> entries) {
+        entriesByName.put(name, entries);
+        entries.forEach(
+            (path, values) ->
+                values.forEach(
+                    value -> postings.computeIfAbsent(path, p -> new HashMap<>()).computeIfAbsent(value, v -> new HashSet<>()).add(name)
+                )
+        );
+    }
+
+    /**
+     * Flattens metadata into its leaf paths and their string values. Elements of arrays are indexed under the path of the array.
+     *
+     * @param metaData the metadata to flatten
+     * @return path -> values
+     */
+    static Map<String, Set<String>> flatten(Map<String, Object> metaData) {
+        Map<String, Set<String>> entries = new HashMap<>();
+        if (metaData != null) {
+            metaData.forEach((key, value) -> flatten(key, value, entries));
+        }
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(String path, Object value, Map<String, Set<String>> entries) {
+        if (value instanceof Map) {
+            ((Map<String, Object>) value).forEach((key, child) -> flatten(path + "." + key, child, entries));
+        } else if (value instanceof Collection) {
+            ((Collection<Object>) value).forEach(element -> flatten(path, element, entries));
+        } else if (value != null) {
+            entries.computeIfAbsent(path, p -> new HashSet<>()).add(String.valueOf(value));
+        }
+    }
+
+    private final class EntityWriteListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            onWrite(event.getEntity(), false);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            onWrite(event.getEntity(), false);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            onWrite(event.getEntity(), true);
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        /**
+         * Still abstract in Hibernate 5.4, which only calls {@link #requiresPostCommitHandling(EntityPersister)}.
+         */
+        @Override
+        @Deprecated
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return requiresPostCommitHandling(persister);
+        }
+    }
+
+    private static final class CachedResult {
+
+        private final Set<String> names;
+        private final Set<String> paths;
+
+        private CachedResult(Set<String> names, Set<String> paths) {
+            this.names = names;
+            this.paths = paths;
+        }
+    }
+}
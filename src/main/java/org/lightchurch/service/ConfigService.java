@@ -1,17 +1,61 @@
 package org.lightchurch.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import javax.persistence.EntityManager;
+import org.lightchurch.config.ApplicationProperties;
 import org.lightchurch.domain.Config;
+import org.lightchurch.domain.ConfigStore;
+import org.lightchurch.domain.ConfigTombstone;
+import org.lightchurch.repository.ConfigStoreRepository;
+import org.lightchurch.repository.ConfigTombstoneRepository;
 import org.lightchurch.repository.ConfigsRepository;
+import org.lightchurch.service.dto.ConfigBulkOperationDTO;
+import org.lightchurch.service.dto.ConfigBulkResultDTO;
 import org.lightchurch.service.dto.ConfigDTO;
+import org.lightchurch.service.dto.ConfigDeltaDTO;
+import org.lightchurch.service.dto.ConfigMultiGetDTO;
+import org.lightchurch.service.dto.ConfigPayload;
+import org.lightchurch.service.dto.ConfigTombstoneDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.configurationprocessor.json.JSONObject;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * @author tom9b
@@ -26,26 +70,148 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class ConfigService {
 
+    /**
+     * Cache of the parsed {@link ConfigDTO} snapshots, keyed by config name.
+     */
+    public static final String CONFIGS_BY_NAME_CACHE = "configsByName";
+
+    /**
+     * Cache of the serialized {@link ConfigPayload} of each config, keyed by config name.
+     */
+    public static final String CONFIG_PAYLOADS_BY_NAME_CACHE = "configPayloadsByName";
+
+    /**
+     * Names taken by the endpoints under {@code /configs}, which a config could be created with but not read back.
+     * Names starting with an underscore are reserved too, for the endpoints to come.
+     */
+    private static final Set<String> RESERVED_NAMES = Set.of("watch", "events");
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    /**
+     * Marks a path leading to no value, {@code null} being a JSON value.
+     */
+    private static final Object MISSING = new Object();
+
     private final Logger logger = LoggerFactory.getLogger(ConfigService.class);
     private final ConfigsRepository configsRepository;
+    private final ConfigStoreRepository configStoreRepository;
+    private final ConfigTombstoneRepository configTombstoneRepository;
+    private final ConfigSearchIndex configSearchIndex;
+    private final ConfigMetadataCodec configMetadataCodec;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter canonicalWriter;
+    private final Map<ConfigFormat, ObjectMapper> payloadMappers = new EnumMap<>(ConfigFormat.class);
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ApplicationProperties.Configs configsProperties;
+
+    /**
+     * Incremented on every change, so that an aggregate payload built from an older state is never served.
+     */
+    private final AtomicLong configsGeneration = new AtomicLong();
+    private final Map<ConfigFormat, GenerationPayload> allConfigsPayloads = new ConcurrentHashMap<>();
+
+    /**
+     * search query -> parsed query, least recently used first.
+     */
+    private final Map<String, ConfigQuery> parsedQueries;
 
-    public ConfigService(ConfigsRepository configsRepository) {
+    public ConfigService(
+        ConfigsRepository configsRepository,
+        ConfigStoreRepository configStoreRepository,
+        ConfigTombstoneRepository configTombstoneRepository,
+        ConfigSearchIndex configSearchIndex,
+        ConfigMetadataCodec configMetadataCodec,
+        CacheInvalidationService cacheInvalidationService,
+        EntityManager entityManager,
+        CacheManager cacheManager,
+        ObjectMapper objectMapper,
+        MappingJackson2SmileHttpMessageConverter smileConverter,
+        MappingJackson2CborHttpMessageConverter cborConverter,
+        ApplicationEventPublisher applicationEventPublisher,
+        ApplicationProperties applicationProperties
+    ) {
         this.configsRepository = configsRepository;
+        this.configStoreRepository = configStoreRepository;
+        this.configTombstoneRepository = configTombstoneRepository;
+        this.configSearchIndex = configSearchIndex;
+        this.configMetadataCodec = configMetadataCodec;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.entityManager = entityManager;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        // The payloads are encoded by the mappers the HTTP layer uses for the same formats
+        this.payloadMappers.put(ConfigFormat.JSON, objectMapper);
+        this.payloadMappers.put(ConfigFormat.SMILE, smileConverter.getObjectMapper());
+        this.payloadMappers.put(ConfigFormat.CBOR, cborConverter.getObjectMapper());
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.configsProperties = applicationProperties.getConfigs();
+        int cacheSize = configsProperties.getSearch().getCacheSize();
+        this.parsedQueries =
+            Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, ConfigQuery> eldest) {
+                        return size() > cacheSize;
+                    }
+                }
+            );
     }
 
     /**
+     * Creates a config with a single INSERT: a new {@link Config} has no revision yet, so that it is persisted rather
+     * than merged, and the name being the primary key, a name already used fails the INSERT itself.
+     *
      * @param configDTO details for creating the new config
      * @return new config
+     * @throws ConfigNameAlreadyUsedException if a config with the same name exists
+     * @throws ReservedConfigNameException    if the name is reserved
      */
     public Config createConfig(ConfigDTO configDTO) {
+        checkNotReserved(configDTO.getName());
         Config config = new Config();
         config.setName(configDTO.getName());
-        config.setMetaData(new JSONObject(configDTO.getMetaData()).toString());
-        configsRepository.save(config);
+        config.setMetaData(configMetadataCodec.encode(configDTO.getMetaData()));
+        config.setMetaDataHash(metaDataHash(configDTO.getMetaData()));
+        config.setVersion(nextVersion());
+        config.setCreatedVersion(config.getVersion());
+        // Indexed before the INSERT is flushed, so that the index does not index it again on the flush
+        configSearchIndex.index(config.getName(), configDTO.getMetaData());
+        try {
+            configsRepository.saveAndFlush(config);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateKey(e)) {
+                throw new ConfigNameAlreadyUsedException();
+            }
+            throw e;
+        }
+        configTombstoneRepository.deleteByName(config.getName());
+        clearConfigCaches(config.getName());
+        applicationEventPublisher.publishEvent(
+            new ConfigChangedEvent(config.getName(), config.getVersion(), ConfigChangedEvent.Type.CREATED)
+        );
         logger.debug("Created a configuration as follows: {}", config);
         return config;
     }
 
+    /**
+     * @return whether the violated constraint is a primary key or unique one, rather than a NOT NULL or size one
+     */
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                // Standard SQLState of unique violations, and MySQL / MariaDB error code of duplicate entries
+                return "23505".equals(sqlException.getSQLState()) || sqlException.getErrorCode() == 1062;
+            }
+        }
+        return false;
+    }
+
     /**
      * Update the a specified config and return details after the update
      *
@@ -53,18 +219,83 @@ public class ConfigService {
      * @return updated config
      */
     public Optional<ConfigDTO> updateConfig(String name, ConfigDTO configDTO) {
-        return Optional
-            .of(configsRepository.findByName(name))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
+        return updateConfig(name, configDTO, null);
+    }
+
+    /**
+     * Update the a specified config if it is at one of the expected versions, and return details after the update.
+     * <p>
+     * The config is read once the store is locked, see {@link #lockStore()}, so that an unconditional update waiting on
+     * a concurrent one applies on top of it. The {@link Config#getRevision() revision} of the config is still checked
+     * when it is written, for the writes made through JPA outside this service. Metadata equal to the stored one once
+     * canonicalized leaves the config as is: nothing is written, evicted or published.
+     *
+     * @param configDTO        config to update
+     * @param expectedVersions versions at which the config may be updated, {@code null} to update it at any version
+     * @return updated config
+     * @throws ConfigPreconditionFailedException if the config is not at one of the expected versions
+     */
+    public Optional<ConfigDTO> updateConfig(String name, ConfigDTO configDTO, Collection<Long> expectedVersions) {
+        lockStore();
+        Optional<Config> existing = configsRepository.findByName(name);
+        checkVersion(name, existing, expectedVersions);
+        return existing
             .map(
                 config -> {
-                    config.setMetaData(new JSONObject(configDTO.getMetaData()).toString());
-                    logger.debug("Updated configs for {} to {}", config.getName(), config.getMetaData());
+                    String metaDataHash = metaDataHash(configDTO.getMetaData());
+                    if (metaDataHash.equals(storedMetaDataHash(config))) {
+                        logger.debug("Config {} unchanged, skipping the update", name);
+                        return config;
+                    }
+                    config.setMetaData(configMetadataCodec.encode(configDTO.getMetaData()));
+                    config.setMetaDataHash(metaDataHash);
+                    config.setVersion(nextVersion());
+                    configSearchIndex.index(config.getName(), configDTO.getMetaData());
+                    flushConditionalWrite(name, expectedVersions);
+                    clearConfigCaches(config.getName());
+                    applicationEventPublisher.publishEvent(
+                        new ConfigChangedEvent(config.getName(), config.getVersion(), ConfigChangedEvent.Type.UPDATED)
+                    );
+                    logger.debug("Updated configs for {} to {}", config.getName(), configDTO.getMetaData());
                     return config;
                 }
             )
-            .map(ConfigDTO::new);
+            .map(this::toDTO);
+    }
+
+    /**
+     * Patch the metadata of a config if it is at one of the expected versions, and return details after the update.
+     * <p>
+     * The patch is applied to a tree of the parsed metadata cached in {@link #CONFIGS_BY_NAME_CACHE}, so that the stored
+     * metadata is only parsed when that snapshot is missing or older than the config. The patched metadata is then
+     * written as by {@link #updateConfig(String, ConfigDTO, Collection)}.
+     *
+     * @param name             name of the config to patch
+     * @param patch            applies the patch to the metadata tree, see {@link ConfigPatches}
+     * @param expectedVersions versions at which the config may be patched, {@code null} to patch it at any version
+     * @return patched config
+     * @throws ConfigPreconditionFailedException if the config is not at one of the expected versions
+     * @throws InvalidConfigPatchException       if the patch is malformed, or does not leave an object
+     * @throws ConfigPatchConflictException      if the patch does not apply to the metadata of the config
+     */
+    public Optional<ConfigDTO> patchConfig(String name, UnaryOperator<JsonNode> patch, Collection<Long> expectedVersions) {
+        long generation = configsGeneration.get();
+        lockStore();
+        Optional<Config> existing = configsRepository.findByName(name);
+        checkVersion(name, existing, expectedVersions);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        // The snapshot is only used at the version of the config it is written to
+        ConfigDTO snapshot = toCachedDTO(existing.get(), generation);
+        JsonNode metaData = patch.apply(objectMapper.valueToTree(snapshot.getMetaData()));
+        if (!metaData.isObject()) {
+            throw new InvalidConfigPatchException("The patched metadata of " + name + " is not an object");
+        }
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setName(name);
+        configDTO.setMetaData(objectMapper.convertValue(metaData, METADATA_TYPE));
+        return updateConfig(name, configDTO, expectedVersions);
     }
 
     /**
@@ -73,14 +304,214 @@ public class ConfigService {
      * @param name name for the config to delete
      */
     public void deleteConfig(String name) {
-        configsRepository
-            .findByName(name)
-            .ifPresent(
-                config -> {
-                    configsRepository.delete(config);
-                    logger.debug("Deleted config {}", config);
+        deleteConfig(name, null);
+    }
+
+    /**
+     * Delete a config given the name if it is at one of the expected versions.
+     *
+     * @param name             name for the config to delete
+     * @param expectedVersions versions at which the config may be deleted, {@code null} to delete it at any version
+     * @throws ConfigPreconditionFailedException if the config is not at one of the expected versions
+     */
+    public void deleteConfig(String name, Collection<Long> expectedVersions) {
+        lockStore();
+        Optional<Config> existing = configsRepository.findByName(name);
+        checkVersion(name, existing, expectedVersions);
+        existing.ifPresent(
+            config -> {
+                configsRepository.delete(config);
+                ConfigTombstone tombstone = new ConfigTombstone();
+                tombstone.setName(config.getName());
+                tombstone.setVersion(nextVersion());
+                tombstone.setDeletedDate(Instant.now());
+                configTombstoneRepository.save(tombstone);
+                configSearchIndex.remove(config.getName());
+                flushConditionalWrite(name, expectedVersions);
+                applicationEventPublisher.publishEvent(
+                    new ConfigChangedEvent(config.getName(), tombstone.getVersion(), ConfigChangedEvent.Type.DELETED)
+                );
+                clearConfigCaches(config.getName());
+                logger.debug("Deleted config {}", config);
+            }
+        );
+    }
+
+    private static void checkNotReserved(String name) {
+        if (name != null && (name.startsWith("_") || RESERVED_NAMES.contains(name))) {
+            throw new ReservedConfigNameException(name);
+        }
+    }
+
+    /**
+     * A missing config is at none of the expected versions.
+     */
+    private static void checkVersion(String name, Optional<Config> config, Collection<Long> expectedVersions) {
+        if (expectedVersions != null && (config.isEmpty() || !expectedVersions.contains(config.get().getVersion()))) {
+            throw new ConfigPreconditionFailedException(name);
+        }
+    }
+
+    /**
+     * Writes a conditional change right away, so that a concurrent write committed since the config was read fails
+     * the precondition rather than surfacing as a conflict at commit.
+     */
+    private void flushConditionalWrite(String name, Collection<Long> expectedVersions) {
+        if (expectedVersions != null) {
+            try {
+                configsRepository.flush();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                throw new ConfigPreconditionFailedException(name);
+            }
+        }
+    }
+
+    /**
+     * Applies upserts and deletes of configs in one transaction, in the order given.
+     * <p>
+     * Existing configs and tombstones are loaded with one query each and the versions of all the changes are reserved at
+     * once, so that the writes themselves go out in JDBC batches. An upsert leaving the metadata of a config as is
+     * changes nothing.
+     *
+     * @param operations the operations to apply
+     * @return the outcome of every operation, in the same order
+     * @throws ReservedConfigNameException if an upsert has a reserved name
+     */
+    public List<ConfigBulkResultDTO> bulkConfigs(List<ConfigBulkOperationDTO> operations) {
+        operations
+            .stream()
+            .filter(operation -> operation.getOp() == ConfigBulkOperationDTO.Op.UPSERT)
+            .forEach(operation -> checkNotReserved(operation.getName()));
+        lockStore();
+        Set<String> names = operations.stream().map(ConfigBulkOperationDTO::getName).collect(Collectors.toSet());
+        Map<String, Config> configsByName = configsRepository
+            .findAllById(names)
+            .stream()
+            .collect(Collectors.toMap(Config::getName, config -> config));
+        Map<String, ConfigTombstone> tombstonesByName = configTombstoneRepository
+            .findAllById(names)
+            .stream()
+            .collect(Collectors.toMap(ConfigTombstone::getName, tombstone -> tombstone));
+        Set<String> existing = new HashSet<>(configsByName.keySet());
+        Map<ConfigBulkOperationDTO, String> upsertHashes = new IdentityHashMap<>();
+        operations
+            .stream()
+            .filter(operation -> operation.getOp() == ConfigBulkOperationDTO.Op.UPSERT)
+            .forEach(operation -> upsertHashes.put(operation, metaDataHash(operation.getMetaData())));
+
+        // Planned first, so that the versions of all the changes are reserved at once
+        Map<String, String> hashes = new HashMap<>();
+        configsByName.forEach((name, config) -> hashes.put(name, storedMetaDataHash(config)));
+        int changes = 0;
+        for (ConfigBulkOperationDTO operation : operations) {
+            if (operation.getOp() == ConfigBulkOperationDTO.Op.UPSERT) {
+                String hash = upsertHashes.get(operation);
+                if (!hash.equals(hashes.put(operation.getName(), hash))) {
+                    changes++;
                 }
-            );
+            } else if (hashes.remove(operation.getName()) != null) {
+                changes++;
+            }
+        }
+        long version = changes > 0 ? reserveVersions(changes) : 0;
+
+        Set<String> present = new HashSet<>(existing);
+        Set<String> changed = new HashSet<>();
+        Map<String, Long> deletedVersions = new HashMap<>();
+        List<ConfigBulkResultDTO> results = new ArrayList<>(operations.size());
+        List<ConfigChangedEvent> events = new ArrayList<>();
+        for (ConfigBulkOperationDTO operation : operations) {
+            String name = operation.getName();
+            if (operation.getOp() == ConfigBulkOperationDTO.Op.UPSERT) {
+                String hash = upsertHashes.get(operation);
+                if (present.contains(name) && hash.equals(storedMetaDataHash(configsByName.get(name)))) {
+                    Long currentVersion = configsByName.get(name).getVersion();
+                    results.add(new ConfigBulkResultDTO(name, ConfigBulkResultDTO.Status.UNCHANGED, currentVersion));
+                    continue;
+                }
+                changed.add(name);
+                Config config = configsByName.computeIfAbsent(
+                    name,
+                    n -> {
+                        Config created = new Config();
+                        created.setName(n);
+                        return created;
+                    }
+                );
+                boolean created = present.add(name);
+                config.setMetaData(configMetadataCodec.encode(operation.getMetaData()));
+                config.setMetaDataHash(hash);
+                config.setVersion(version++);
+                if (created) {
+                    config.setCreatedVersion(config.getVersion());
+                }
+                deletedVersions.remove(name);
+                configSearchIndex.index(name, operation.getMetaData());
+                if (created) {
+                    results.add(new ConfigBulkResultDTO(name, ConfigBulkResultDTO.Status.CREATED, config.getVersion()));
+                    events.add(new ConfigChangedEvent(name, config.getVersion(), ConfigChangedEvent.Type.CREATED));
+                } else {
+                    results.add(new ConfigBulkResultDTO(name, ConfigBulkResultDTO.Status.UPDATED, config.getVersion()));
+                    events.add(new ConfigChangedEvent(name, config.getVersion(), ConfigChangedEvent.Type.UPDATED));
+                }
+            } else if (present.remove(name)) {
+                changed.add(name);
+                deletedVersions.put(name, version++);
+                configSearchIndex.remove(name);
+                results.add(new ConfigBulkResultDTO(name, ConfigBulkResultDTO.Status.DELETED, deletedVersions.get(name)));
+                events.add(new ConfigChangedEvent(name, deletedVersions.get(name), ConfigChangedEvent.Type.DELETED));
+            } else {
+                results.add(new ConfigBulkResultDTO(name, ConfigBulkResultDTO.Status.NOT_FOUND, null));
+            }
+        }
+
+        // Only the final state of every config is written
+        List<Config> saved = new ArrayList<>();
+        List<Config> deleted = new ArrayList<>();
+        configsByName.forEach(
+            (name, config) -> {
+                if (!changed.contains(name)) {
+                    return;
+                }
+                if (present.contains(name)) {
+                    saved.add(config);
+                } else if (existing.contains(name)) {
+                    deleted.add(config);
+                }
+            }
+        );
+        configsRepository.saveAll(saved);
+        configsRepository.deleteAll(deleted);
+        Instant now = Instant.now();
+        List<ConfigTombstone> tombstones = new ArrayList<>();
+        deletedVersions.forEach(
+            (name, deletedVersion) -> {
+                ConfigTombstone tombstone = tombstonesByName.computeIfAbsent(
+                    name,
+                    n -> {
+                        ConfigTombstone created = new ConfigTombstone();
+                        created.setName(n);
+                        return created;
+                    }
+                );
+                tombstone.setVersion(deletedVersion);
+                tombstone.setDeletedDate(now);
+                tombstones.add(tombstone);
+            }
+        );
+        configTombstoneRepository.saveAll(tombstones);
+        configTombstoneRepository.deleteAll(
+            tombstonesByName
+                .values()
+                .stream()
+                .filter(tombstone -> changed.contains(tombstone.getName()) && present.contains(tombstone.getName()))
+                .collect(Collectors.toList())
+        );
+
+        clearConfigCaches(changed);
+        events.forEach(applicationEventPublisher::publishEvent);
+        logger.debug("Applied {} bulk operations, {} changes", operations.size(), changes);
+        return results;
     }
 
     /**
@@ -88,46 +519,580 @@ public class ConfigService {
      */
     @Transactional(readOnly = true)
     public List<ConfigDTO> getAllConfig() {
-        return configsRepository.findAll().stream().map(ConfigDTO::new).collect(Collectors.toList());
+        long generation = configsGeneration.get();
+        return configsRepository.findAll().stream().map(config -> toCachedDTO(config, generation)).collect(Collectors.toList());
     }
 
     /**
+     * Served from the {@link #CONFIGS_BY_NAME_CACHE} cache, the database is only hit on a cache miss.
+     *
      * @return Config by name if present
      */
     @Transactional(readOnly = true)
     public Optional<ConfigDTO> getConfigByName(String name) {
-        return configsRepository.findByName(name).map(ConfigDTO::new);
-    }
-
-    /**
-     * @param params Hashmap specifying the search criteria
-     * @return A List of configs meeting criteria
-     */
-    public List<ConfigDTO> searchConfigs(Map<String, String> params) {
-        Map.Entry<String, String> entry = params.entrySet().iterator().next();
-        String[] path = entry.getKey().split("\\.");
-        String config = path[1];
-        String key = path[2];
-        String value = entry.getValue();
-        Optional<List<Config>> configs = (Optional<List<Config>>) configsRepository.findByMetaDataContains(config);
-        List<Config> filtered = new ArrayList<>();
-        configs.ifPresent(
-            configList -> {
-                configList.forEach(
-                    c -> {
-                        try {
-                            Map<String, Object> map = (Map<String, Object>) new ObjectMapper()
-                                .readValue(c.getMetaData(), HashMap.class)
-                                .get(config);
-                            if (map.get(key).equals(value)) filtered.add(c);
-                        } catch (JsonProcessingException e) {
-                            logger.error(new Object() {}.getClass().getEnclosingMethod().getName(), e);
-                        }
+        ConfigDTO cached = configsByNameCache().get(name, ConfigDTO.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = configsGeneration.get();
+        return configsRepository.findByName(name).map(config -> toCachedDTO(config, generation));
+    }
+
+    /**
+     * @param format the format of the body
+     * @return the serialized body of {@link #getAllConfig()}, only rebuilt after a config has changed
+     */
+    @Transactional(readOnly = true)
+    public ConfigPayload getAllConfigPayload(ConfigFormat format) {
+        GenerationPayload cached = allConfigsPayloads.get(format);
+        if (cached != null && cached.generation == configsGeneration.get()) {
+            return cached.payload;
+        }
+        long generation = configsGeneration.get();
+        // The store version is read first, so that it is never newer than the configs read after it
+        long version = getStoreVersion();
+        ConfigPayload payload = toPayload(version, getAllConfig(), format);
+        allConfigsPayloads.put(format, new GenerationPayload(generation, payload));
+        return payload;
+    }
+
+    /**
+     * Served from the {@link #CONFIG_PAYLOADS_BY_NAME_CACHE} cache, only rebuilt after the config has changed. Every
+     * format is cached apart, once requested, unless a config changed while the payload was built.
+     *
+     * @param format the format of the body
+     * @return the serialized body of {@link #getConfigByName(String)} if the config is present
+     */
+    @Transactional(readOnly = true)
+    public Optional<ConfigPayload> getConfigPayload(String name, ConfigFormat format) {
+        Cache cache = configPayloadsByNameCache();
+        Object key = payloadKey(name, format);
+        ConfigPayload cached = cache.get(key, ConfigPayload.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Read first, so that a payload built from a config read before a change is not cached after its eviction
+        long generation = configsGeneration.get();
+        return getConfigByName(name)
+            .map(
+                configDTO -> {
+                    ConfigPayload payload = toPayload(configDTO.getVersion(), configDTO, format);
+                    putIfUnchanged(cache, key, payload, generation);
+                    return payload;
+                }
+            );
+    }
+
+    /**
+     * Serializes one subtree of the metadata of a config, walked down from the parsed {@link #CONFIGS_BY_NAME_CACHE}
+     * snapshot: the rest of the metadata is neither parsed nor serialized.
+     * <p>
+     * The payload carries the hash of its body, which identifies the subtree whatever the version of the config, so that
+     * it stays valid across changes to other parts of the metadata.
+     *
+     * @param name name of the config
+     * @param path   reference tokens from the metadata root to the subtree: object keys, or indexes in arrays
+     * @param format the format of the body
+     * @return the serialized subtree if the config has one at {@code path}
+     */
+    @Transactional(readOnly = true)
+    public Optional<ConfigPayload> getConfigMetadataPayload(String name, List<String> path, ConfigFormat format) {
+        return getConfigByName(name)
+            .flatMap(
+                configDTO -> {
+                    Object subtree = subtree(configDTO.getMetaData(), path);
+                    if (subtree == MISSING) {
+                        return Optional.empty();
                     }
-                );
+                    try {
+                        byte[] body = payloadMappers.get(format).writeValueAsBytes(subtree);
+                        return Optional.of(new ConfigPayload(configDTO.getVersion(), body, null, sha256(body)));
+                    } catch (JsonProcessingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            );
+    }
+
+    private static Object subtree(Object node, List<String> path) {
+        for (String token : path) {
+            if (node instanceof Map && ((Map<?, ?>) node).containsKey(token)) {
+                node = ((Map<?, ?>) node).get(token);
+            } else if (node instanceof List && token.matches("0|[1-9][0-9]{0,8}") && Integer.parseInt(token) < ((List<?>) node).size()) {
+                node = ((List<?>) node).get(Integer.parseInt(token));
+            } else {
+                return MISSING;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Keyset pagination of the configs in name order.
+     *
+     * @param after name of the last config of the previous page, {@code null} for the first page
+     * @param size  the maximum number of configs to return
+     * @return the configs following {@code after}
+     */
+    @Transactional(readOnly = true)
+    public List<ConfigDTO> getConfigsPage(String after, int size) {
+        long generation = configsGeneration.get();
+        return configsRepository
+            .findByNameGreaterThanOrderByName(after == null ? "" : after, PageRequest.of(0, size))
+            .stream()
+            .map(config -> toCachedDTO(config, generation))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes all the configs as newline delimited JSON, in name order.
+     * <p>
+     * Configs are read through a database cursor and detached once written, and are not added to the cache, so that
+     * memory use does not grow with the number of configs.
+     *
+     * @param out where to write the configs
+     * @throws IOException if the configs cannot be written
+     */
+    @Transactional(readOnly = true)
+    public void writeAllConfigs(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ConfigDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        Cache cache = configsByNameCache();
+        int count = 0;
+        try (Stream<Config> configs = configsRepository.streamAllByOrderByName()) {
+            Iterator<Config> iterator = configs.iterator();
+            while (iterator.hasNext()) {
+                Config config = iterator.next();
+                ConfigDTO cached = cache.get(config.getName(), ConfigDTO.class);
+                writer.writeValue(out, cached != null && config.getVersion().equals(cached.getVersion()) ? cached : toDTO(config));
+                out.write('\n');
+                entityManager.detach(config);
+                count++;
+            }
+        }
+        logger.debug("Streamed {} configs", count);
+    }
+
+    /**
+     * Resolves many configs in one call, from the {@link #CONFIGS_BY_NAME_CACHE} cache and a single query for the others.
+     *
+     * @param names names of the configs
+     * @return the existing configs keyed by name in the order requested, and the names of the missing ones
+     */
+    @Transactional(readOnly = true)
+    public ConfigMultiGetDTO getConfigs(Collection<String> names) {
+        Set<String> requested = new LinkedHashSet<>(names);
+        Map<String, ConfigDTO> found = getConfigsByNames(requested)
+            .stream()
+            .collect(Collectors.toMap(ConfigDTO::getName, configDTO -> configDTO));
+        Map<String, ConfigDTO> configs = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        requested.forEach(
+            name -> {
+                ConfigDTO configDTO = found.get(name);
+                if (configDTO != null) {
+                    configs.put(name, configDTO);
+                } else {
+                    missing.add(name);
+                }
+            }
+        );
+        return new ConfigMultiGetDTO(configs, missing);
+    }
+
+    /**
+     * Reads the version of a config without loading its metadata, from the caches when possible.
+     *
+     * @param name name of the config
+     * @return the version of the config if present
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getConfigVersion(String name) {
+        ConfigPayload payload = configPayloadsByNameCache().get(name, ConfigPayload.class);
+        if (payload != null) {
+            return Optional.of(payload.getVersion());
+        }
+        ConfigDTO cached = configsByNameCache().get(name, ConfigDTO.class);
+        if (cached != null) {
+            return Optional.of(cached.getVersion());
+        }
+        return configsRepository.findVersionByName(name);
+    }
+
+    /**
+     * @param name name of the config
+     * @return the version at which the config was last created, updated or deleted, {@code 0} if it never existed
+     */
+    @Transactional(readOnly = true)
+    public long getLastChangeVersion(String name) {
+        return getConfigVersion(name)
+            .orElseGet(() -> configTombstoneRepository.findById(name).map(ConfigTombstone::getVersion).orElse(0L));
+    }
+
+    /**
+     * @return the current version of the config store, incremented by every create, update and delete
+     */
+    @Transactional(readOnly = true)
+    public long getStoreVersion() {
+        for (GenerationPayload cached : allConfigsPayloads.values()) {
+            if (cached.generation == configsGeneration.get()) {
+                return cached.payload.getVersion();
+            }
+        }
+        return configStoreRepository.findVersion(ConfigStore.ID);
+    }
+
+    /**
+     * Lists the configs changed and deleted since a version of the config store.
+     * <p>
+     * The returned version is read before the changes, so that a change committed meanwhile is reported again on the
+     * next sync rather than missed.
+     *
+     * @param sinceVersion the config store version the client is up to date with
+     * @return the changes, or all the configs if the changes since {@code sinceVersion} cannot be computed
+     */
+    @Transactional(readOnly = true)
+    public ConfigDeltaDTO getConfigChanges(long sinceVersion) {
+        long generation = configsGeneration.get();
+        ConfigStore store = configStoreRepository.findById(ConfigStore.ID).orElseThrow();
+        if (sinceVersion < store.getPurgedVersion() || sinceVersion > store.getVersion()) {
+            return new ConfigDeltaDTO(store.getVersion(), true, getAllConfig(), Collections.emptyList());
+        }
+        List<ConfigDTO> changed = configsRepository
+            .findByVersionGreaterThanOrderByVersion(sinceVersion)
+            .stream()
+            .map(config -> toCachedDTO(config, generation))
+            .collect(Collectors.toList());
+        List<ConfigTombstoneDTO> deleted = configTombstoneRepository
+            .findByVersionGreaterThanOrderByVersion(sinceVersion)
+            .stream()
+            .map(ConfigTombstoneDTO::new)
+            .collect(Collectors.toList());
+        logger.debug("{} configs changed and {} deleted since version {}", changed.size(), deleted.size(), sinceVersion);
+        return new ConfigDeltaDTO(store.getVersion(), false, changed, deleted);
+    }
+
+    /**
+     * Purges the tombstones older than the retention period, clients syncing from before them will get all the configs.
+     * <p>
+     * This is scheduled to get fired everyday, at 02:00 (am).
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void purgeTombstones() {
+        Instant before = Instant.now().minus(configsProperties.getTombstoneRetentionDays(), ChronoUnit.DAYS);
+        Long purgedVersion = configTombstoneRepository.findMaxVersionDeletedBefore(before);
+        if (purgedVersion != null) {
+            configStoreRepository.updatePurgedVersion(ConfigStore.ID, purgedVersion);
+            int purged = configTombstoneRepository.deleteUpToVersion(purgedVersion);
+            logger.debug("Purged {} config tombstones up to version {}", purged, purgedVersion);
+        }
+    }
+
+    /**
+     * Search configs through the {@link ConfigSearchIndex}, reusing the plan of a query parsed before.
+     *
+     * @param query the search criteria, as described in {@link ConfigQuery}
+     * @return A List of configs meeting criteria, sorted by name
+     * @throws InvalidConfigQueryException if the query is not valid
+     */
+    @Transactional(readOnly = true)
+    public List<ConfigDTO> searchConfigs(String query) {
+        ConfigQuery parsed = parsedQueries.get(query);
+        if (parsed == null) {
+            parsed = ConfigQuery.parse(query);
+            parsedQueries.put(query, parsed);
+        }
+        return searchConfigs(parsed);
+    }
+
+    /**
+     * Search configs through the {@link ConfigSearchIndex}.
+     *
+     * @param query the search criteria
+     * @return A List of configs meeting criteria, sorted by name
+     */
+    @Transactional(readOnly = true)
+    public List<ConfigDTO> searchConfigs(ConfigQuery query) {
+        List<ConfigDTO> filtered = getConfigsByNames(configSearchIndex.search(query));
+        logger.debug("Returning {} configs matching {}", filtered.size(), query);
+        return filtered;
+    }
+
+    /**
+     * Resolves configs from the {@link #CONFIGS_BY_NAME_CACHE} cache, loading the missing ones with a single query.
+     *
+     * @param names names of the configs
+     * @return the existing configs, sorted by name
+     */
+    private List<ConfigDTO> getConfigsByNames(Collection<String> names) {
+        Cache cache = configsByNameCache();
+        List<ConfigDTO> configs = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        names.forEach(
+            name -> {
+                ConfigDTO cached = cache.get(name, ConfigDTO.class);
+                if (cached != null) {
+                    configs.add(cached);
+                } else {
+                    missing.add(name);
+                }
+            }
+        );
+        if (!missing.isEmpty()) {
+            long generation = configsGeneration.get();
+            configsRepository.findAllById(missing).forEach(config -> configs.add(toCachedDTO(config, generation)));
+        }
+        configs.sort(Comparator.comparing(ConfigDTO::getName));
+        return configs;
+    }
+
+    /**
+     * Returns the cached snapshot of a config, parsing its metadata when there is none for its version.
+     * <p>
+     * The parsed snapshot is only cached if no cached one is newer, and if no config changed since {@code generation}:
+     * the config may have been read before a change whose eviction already happened.
+     *
+     * @param generation the {@link #configsGeneration} read before the config was loaded
+     */
+    private ConfigDTO toCachedDTO(Config config, long generation) {
+        Cache cache = configsByNameCache();
+        ConfigDTO cached = cache.get(config.getName(), ConfigDTO.class);
+        if (cached != null && config.getVersion().equals(cached.getVersion())) {
+            return cached;
+        }
+        ConfigDTO configDTO = toDTO(config);
+        if (cached == null || config.getVersion() > cached.getVersion()) {
+            putIfUnchanged(cache, config.getName(), configDTO, generation);
+        }
+        return configDTO;
+    }
+
+    /**
+     * Caches a value read from the database unless a config changed since {@code generation}, evicting it again if a
+     * change happened while it was put.
+     */
+    private void putIfUnchanged(Cache cache, Object key, Object value, long generation) {
+        if (configsGeneration.get() != generation) {
+            return;
+        }
+        cache.put(key, value);
+        if (configsGeneration.get() != generation) {
+            cache.evict(key);
+        }
+    }
+
+    /**
+     * Locks the store until the current transaction completes, before reading the configs a change is based on.
+     * <p>
+     * Changes are serialized by the store row anyway, as {@link #nextVersion()} keeps it locked until commit so that
+     * versions increase in commit order. Taking the lock before the read rather than after means a change waiting on a
+     * concurrent one reads the config that one committed, instead of failing its optimistic lock on the previous one.
+     */
+    private void lockStore() {
+        configStoreRepository.lockById(ConfigStore.ID);
+    }
+
+    /**
+     * Increments the store version, which also serializes concurrent changes until the current transaction completes.
+     *
+     * @return the new store version, to stamp on the changed config
+     */
+    private long nextVersion() {
+        return reserveVersions(1);
+    }
+
+    /**
+     * @return a DTO of {@code config}, its metadata parsed from the stored frame by {@link ConfigMetadataCodec}
+     */
+    private ConfigDTO toDTO(Config config) {
+        try {
+            return new ConfigDTO(config, configMetadataCodec.decode(config.getMetaData()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The canonical JSON is generated straight into the digest, never held in memory.
+     *
+     * @return the SHA-256 of the canonical JSON of {@code metaData}, which has its object keys sorted
+     */
+    private String metaDataHash(Map<String, Object> metaData) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            canonicalWriter.writeValue(new DigestOutputStream(OutputStream.nullOutputStream(), digest), metaData);
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return String.format("%064x", new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(bytes)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the hash of the metadata of a config, computed from the metadata for the configs stored without one
+     */
+    private String storedMetaDataHash(Config config) {
+        return config.getMetaDataHash() != null ? config.getMetaDataHash() : metaDataHash(toDTO(config).getMetaData());
+    }
+
+    /**
+     * @return the first of {@code count} consecutive versions
+     */
+    private long reserveVersions(long count) {
+        configStoreRepository.incrementVersion(ConfigStore.ID, count);
+        return configStoreRepository.findVersion(ConfigStore.ID) - count + 1;
+    }
+
+    private ConfigPayload toPayload(long version, Object body, ConfigFormat format) {
+        try {
+            byte[] encoded = payloadMappers.get(format).writeValueAsBytes(body);
+            ApplicationProperties.Configs.Payload payloadProperties = configsProperties.getPayload();
+            if (!payloadProperties.isGzip() || encoded.length < payloadProperties.getGzipMinSize()) {
+                return new ConfigPayload(version, encoded, null);
+            }
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(encoded.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+                out.write(encoded);
+            }
+            return new ConfigPayload(version, encoded, gzip.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Cache configsByNameCache() {
+        return Objects.requireNonNull(cacheManager.getCache(CONFIGS_BY_NAME_CACHE));
+    }
+
+    private Cache configPayloadsByNameCache() {
+        return Objects.requireNonNull(cacheManager.getCache(CONFIG_PAYLOADS_BY_NAME_CACHE));
+    }
+
+    /**
+     * @return the key of a payload in the {@link #CONFIG_PAYLOADS_BY_NAME_CACHE} cache: the config name for JSON
+     */
+    private static Object payloadKey(String name, ConfigFormat format) {
+        return format == ConfigFormat.JSON ? name : new PayloadKey(name, format);
+    }
+
+    private void clearConfigCaches(String name) {
+        clearConfigCaches(Collections.singleton(name));
+    }
+
+    /**
+     * Drops the state cached by this instance for configs changed by another one: the snapshots and payloads, the
+     * second-level cache entries and the search index entries, which are read again from the database. The changes are
+     * then published again on this instance, so that its watchers and event subscribers learn of them right away.
+     *
+     * @param names names of the changed configs
+     */
+    public void refreshConfigs(Collection<String> names) {
+        evictConfigs(names);
+        names.forEach(name -> entityManager.getEntityManagerFactory().getCache().evict(Config.class, name));
+        Map<String, Config> configsByName = configsRepository
+            .findAllById(names)
+            .stream()
+            .collect(Collectors.toMap(Config::getName, config -> config));
+        for (String name : names) {
+            Config config = configsByName.get(name);
+            if (config == null) {
+                configSearchIndex.remove(name);
+                configTombstoneRepository
+                    .findById(name)
+                    .ifPresent(
+                        tombstone ->
+                            applicationEventPublisher.publishEvent(
+                                new ConfigChangedEvent(name, tombstone.getVersion(), ConfigChangedEvent.Type.DELETED)
+                            )
+                    );
+            } else {
+                configSearchIndex.index(name, toDTO(config).getMetaData());
+                applicationEventPublisher.publishEvent(new ConfigChangedEvent(name, config.getVersion(), ConfigChangedEvent.Type.UPDATED));
+            }
+        }
+        logger.debug("Refreshed configs {} changed by another instance", names);
+    }
+
+    /**
+     * Evicts the cached snapshots and payloads of configs, and evicts them again once the transaction completes so that
+     * a snapshot read concurrently from the previous database state does not outlive the change. The other instances
+     * evict them too once the transaction commits.
+     */
+    private void clearConfigCaches(Collection<String> names) {
+        evictConfigs(names);
+        cacheInvalidationService.invalidateConfigs(names);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        evictConfigs(names);
+                    }
+                }
+            );
+        }
+    }
+
+    private void evictConfigs(Collection<String> names) {
+        configsGeneration.incrementAndGet();
+        Cache configsByNameCache = configsByNameCache();
+        Cache configPayloadsByNameCache = configPayloadsByNameCache();
+        names.forEach(
+            name -> {
+                configsByNameCache.evict(name);
+                for (ConfigFormat format : ConfigFormat.values()) {
+                    configPayloadsByNameCache.evict(payloadKey(name, format));
+                }
             }
         );
-        logger.debug("Returning {} filtered configs", filtered.size());
-        return filtered.stream().map(ConfigDTO::new).collect(Collectors.toList());
+    }
+
+    private static final class PayloadKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final ConfigFormat format;
+
+        private PayloadKey(String name, ConfigFormat format) {
+            this.name = name;
+            this.format = format;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PayloadKey)) {
+                return false;
+            }
+            PayloadKey other = (PayloadKey) o;
+            return name.equals(other.name) && format == other.format;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, format);
+        }
+    }
+
+    private static final class GenerationPayload {
+
+        private final long generation;
+        private final ConfigPayload payload;
+
+        private GenerationPayload(long generation, ConfigPayload payload) {
+            this.generation = generation;
+            this.payload = payload;
+        }
     }
 }
@@ -0,0 +1,114 @@
+package org.lightchurch.service;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service class for watching configs until they change.
+ * <p>
+ * A watch is a future completed once a version newer than the one known to the watcher is committed. Watches hold no
+ * thread while waiting, and a change only completes the watches of the config store and of the changed config.
+ */
+@Service
+public class ConfigWatchService {
+
+    private final Logger log = LoggerFactory.getLogger(ConfigWatchService.class);
+
+    private final ConfigService configService;
+
+    private final Executor taskExecutor;
+
+    private final Set<Watch> storeWatches = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentMap<String, Set<Watch>> configWatches = new ConcurrentHashMap<>();
+
+    public ConfigWatchService(ConfigService configService, @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.configService = configService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Watches the config store as a whole. Cancelling the returned future removes the watch.
+     *
+     * @param version the config store version known to the watcher
+     * @return a future completed with the first newer config store version
+     */
+    public CompletableFuture<Long> watchStore(long version) {
+        Watch watch = new Watch(version);
+        storeWatches.add(watch);
+        watch.future.whenComplete((v, e) -> storeWatches.remove(watch));
+        // Checked after registering, so that a change committed meanwhile is not missed
+        watch.complete(configService.getStoreVersion());
+        return watch.future;
+    }
+
+    /**
+     * Watches a single config. Cancelling the returned future removes the watch.
+     *
+     * @param name    name of the config
+     * @param version the config version known to the watcher, {@code 0} if the config does not exist yet
+     * @return a future completed with the version at which the config is next created, updated or deleted
+     */
+    public CompletableFuture<Long> watchConfig(String name, long version) {
+        Watch watch = new Watch(version);
+        configWatches.computeIfAbsent(name, n -> ConcurrentHashMap.newKeySet()).add(watch);
+        watch.future.whenComplete(
+            (v, e) ->
+                configWatches.computeIfPresent(
+                    name,
+                    (n, watches) -> {
+                        watches.remove(watch);
+                        return watches.isEmpty() ? null : watches;
+                    }
+                )
+        );
+        // Checked after registering, so that a change committed meanwhile is not missed
+        watch.complete(configService.getLastChangeVersion(name));
+        return watch.future;
+    }
+
+    /**
+     * Completes the watches made stale by a committed change, from the task executor so that the committing thread
+     * does not build the responses of the watchers.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConfigChanged(ConfigChangedEvent event) {
+        log.debug("Notifying watchers of {}", event);
+        storeWatches.forEach(watch -> watch.completeAsync(event.getVersion()));
+        Set<Watch> watches = configWatches.get(event.getName());
+        if (watches != null) {
+            watches.forEach(watch -> watch.completeAsync(event.getVersion()));
+        }
+    }
+
+    private final class Watch {
+
+        private final long version;
+
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private Watch(long version) {
+            this.version = version;
+        }
+
+        private void complete(long currentVersion) {
+            if (currentVersion > version) {
+                future.complete(currentVersion);
+            }
+        }
+
+        private void completeAsync(long currentVersion) {
+            if (currentVersion > version && !future.isDone()) {
+                future.completeAsync(() -> currentVersion, taskExecutor);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.lightchurch.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.annotation.PreDestroy;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.service.dto.ConfigDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class coalescing the updates of configs written at a high rate.
+ * <p>
+ * The first update queued opens a window, at the end of which every queued update is applied in one transaction, or in
+ * one transaction each should that fail. Updates of the same config within a window are merged, the last one winning,
+ * so that a hot config is written once per window however often it is updated. The futures of the updates complete once
+ * the transaction has committed.
+ */
+@Service
+public class ConfigWriteCoalescer {
+
+    private final Logger log = LoggerFactory.getLogger(ConfigWriteCoalescer.class);
+
+    private final ConfigService configService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskScheduler taskScheduler;
+
+    private final Executor taskExecutor;
+
+    private final long windowMs;
+
+    /**
+     * config name -> pending update, guarded by itself.
+     */
+    private Map<String, PendingUpdate> pending = new LinkedHashMap<>();
+
+    /**
+     * Held while applying a batch, so that batches are applied in the order they were taken.
+     */
+    private final Object flushLock = new Object();
+
+    public ConfigWriteCoalescer(
+        ConfigService configService,
+        PlatformTransactionManager transactionManager,
+        TaskScheduler taskScheduler,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.configService = configService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskScheduler = taskScheduler;
+        this.taskExecutor = taskExecutor;
+        this.windowMs = applicationProperties.getConfigs().getWriteCoalescing().getWindowMs();
+    }
+
+    /**
+     * Queues an update of a config.
+     *
+     * @param name      name of the config to update
+     * @param configDTO the new config details
+     * @return completes with the config once the update, or a later one merged with it, is committed, empty if the
+     * config does not exist
+     */
+    public CompletableFuture<Optional<ConfigDTO>> updateConfig(String name, ConfigDTO configDTO) {
+        CompletableFuture<Optional<ConfigDTO>> future = new CompletableFuture<>();
+        boolean opened;
+        synchronized (this) {
+            opened = pending.isEmpty();
+            PendingUpdate update = pending.computeIfAbsent(name, n -> new PendingUpdate());
+            update.configDTO = configDTO;
+            update.futures.add(future);
+        }
+        if (opened) {
+            taskScheduler.schedule(() -> taskExecutor.execute(this::flush), Instant.now().plusMillis(windowMs));
+        }
+        return future;
+    }
+
+    /**
+     * Applies the updates queued so far, in one transaction. Should it fail, every update is applied again in its own
+     * transaction, so that a failing update only fails its own callers.
+     */
+    @PreDestroy
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, PendingUpdate> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+            Map<String, Optional<ConfigDTO>> results;
+            try {
+                results =
+                    transactionTemplate.execute(
+                        status -> {
+                            Map<String, Optional<ConfigDTO>> updated = new LinkedHashMap<>();
+                            batch.forEach((name, update) -> updated.put(name, configService.updateConfig(name, update.configDTO)));
+                            return updated;
+                        }
+                    );
+            } catch (RuntimeException e) {
+                log.debug("Could not apply {} coalesced config updates at once, applying them apart: {}", batch.size(), e.getMessage());
+                batch.forEach(this::applyAlone);
+                return;
+            }
+            log.debug("Applied coalesced updates of {} configs", batch.size());
+            batch.forEach((name, update) -> update.futures.forEach(future -> future.complete(results.get(name))));
+        }
+    }
+
+    private void applyAlone(String name, PendingUpdate update) {
+        Optional<ConfigDTO> result;
+        try {
+            result = transactionTemplate.execute(status -> configService.updateConfig(name, update.configDTO));
+        } catch (RuntimeException e) {
+            log.warn("Could not apply coalesced update of config {}: {}", name, e.getMessage());
+            update.futures.forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        update.futures.forEach(future -> future.complete(result));
+    }
+
+    private static final class PendingUpdate {
+
+        private ConfigDTO configDTO;
+        private final List<CompletableFuture<Optional<ConfigDTO>>> futures = new ArrayList<>();
+    }
+}
@@ -0,0 +1,10 @@
+package org.lightchurch.service;
+
+public class InvalidConfigPatchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidConfigPatchException(String message) {
+        super(message);
+    }
+}
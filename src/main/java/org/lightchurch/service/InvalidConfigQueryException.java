@@ -0,0 +1,10 @@
+package org.lightchurch.service;
+
+public class InvalidConfigQueryException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidConfigQueryException(String message) {
+        super(message);
+    }
+}
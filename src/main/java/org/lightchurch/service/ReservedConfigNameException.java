@@ -0,0 +1,10 @@
+package org.lightchurch.service;
+
+public class ReservedConfigNameException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReservedConfigNameException(String name) {
+        super("Config name " + name + " is reserved");
+    }
+}
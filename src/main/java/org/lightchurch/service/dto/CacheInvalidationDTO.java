@@ -0,0 +1,71 @@
+package org.lightchurch.service.dto;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A DTO representing a batch of cache evictions sent by an instance to its peers.
+ */
+public class CacheInvalidationDTO {
+
+    private Set<String> configNames = new HashSet<>();
+
+    private Set<String> userLogins = new HashSet<>();
+
+    private Set<String> userEmails = new HashSet<>();
+
+    public CacheInvalidationDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public Set<String> getConfigNames() {
+        return configNames;
+    }
+
+    public void setConfigNames(Set<String> configNames) {
+        this.configNames = configNames;
+    }
+
+    public Set<String> getUserLogins() {
+        return userLogins;
+    }
+
+    public void setUserLogins(Set<String> userLogins) {
+        this.userLogins = userLogins;
+    }
+
+    public Set<String> getUserEmails() {
+        return userEmails;
+    }
+
+    public void setUserEmails(Set<String> userEmails) {
+        this.userEmails = userEmails;
+    }
+
+    /**
+     * Adds the evictions of another batch to this one.
+     */
+    public void addAll(CacheInvalidationDTO other) {
+        configNames.addAll(other.configNames);
+        userLogins.addAll(other.userLogins);
+        userEmails.addAll(other.userEmails);
+    }
+
+    /**
+     * Removes the evictions of another batch from this one.
+     */
+    public void removeAll(CacheInvalidationDTO other) {
+        configNames.removeAll(other.configNames);
+        userLogins.removeAll(other.userLogins);
+        userEmails.removeAll(other.userEmails);
+    }
+
+    public boolean isEmpty() {
+        return configNames.isEmpty() && userLogins.isEmpty() && userEmails.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidationDTO{configNames=" + configNames + ", userLogins=" + userLogins + ", userEmails=" + userEmails + "}";
+    }
+}
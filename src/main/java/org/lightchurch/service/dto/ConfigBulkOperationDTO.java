@@ -0,0 +1,67 @@
+package org.lightchurch.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.Map;
+
+/**
+ * A DTO representing one operation of a bulk request: the upsert of a config with the given metadata, or its deletion.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "op", "name", "metadata" })
+public class ConfigBulkOperationDTO {
+
+    public enum Op {
+        UPSERT,
+        DELETE,
+    }
+
+    @JsonProperty("op")
+    private Op op;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("metadata")
+    private Map<String, Object> metaData;
+
+    public ConfigBulkOperationDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ConfigBulkOperationDTO(Op op, String name, Map<String, Object> metaData) {
+        this.op = op;
+        this.name = name;
+        this.metaData = metaData;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public void setOp(Op op) {
+        this.op = op;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Map<String, Object> getMetaData() {
+        return metaData;
+    }
+
+    public void setMetaData(Map<String, Object> metaData) {
+        this.metaData = metaData;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigBulkOperationDTO{op=" + op + ", name='" + name + "'}";
+    }
+}
@@ -0,0 +1,65 @@
+package org.lightchurch.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * A DTO representing the outcome of one operation of a bulk request, with the version of the change if there was one, or
+ * the current version of a config an upsert left unchanged.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "name", "status", "version" })
+public class ConfigBulkResultDTO {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        UNCHANGED,
+        DELETED,
+        NOT_FOUND,
+    }
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("status")
+    private Status status;
+
+    @JsonProperty("version")
+    private Long version;
+
+    public ConfigBulkResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ConfigBulkResultDTO(String name, Status status, Long version) {
+        this.name = name;
+        this.status = status;
+        this.version = version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
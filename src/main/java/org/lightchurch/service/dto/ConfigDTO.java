@@ -1,12 +1,15 @@
 package org.lightchurch.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.Map;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
 import org.lightchurch.domain.Config;
+import org.lightchurch.service.ConfigMetadataCodec;
 
 /**
  * @author tom9b
@@ -14,27 +17,58 @@ import org.lightchurch.domain.Config;
  * @Date 7/12/2021 Date file was Created
  * @package com.kyosk.configsapi.controllers.vm
  * @project configs-api
+ * <p>
+ * A DTO built from a {@link Config} is a read-only snapshot: its metadata cannot be modified, so that it can be
+ * shared between requests through the config cache.
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-@JsonPropertyOrder({ "name", "metadata" })
-public class ConfigDTO {
+@JsonPropertyOrder({ "name", "version", "metadata" })
+public class ConfigDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ObjectMapper METADATA_MAPPER = new ObjectMapper();
 
     @JsonProperty("name")
     private String name;
 
+    @JsonProperty("version")
+    private Long version;
+
     @JsonProperty("metadata")
     private Map<String, Object> metaData;
 
+    @JsonIgnore
+    private Long createdVersion;
+
+    /**
+     * Parses the metadata of {@code config} here, untimed: {@code ConfigService} decodes it with
+     * {@link ConfigMetadataCodec#decode(byte[])} instead.
+     */
     @SuppressWarnings("unchecked")
     public ConfigDTO(Config config) {
         this.name = config.getName();
+        this.version = config.getVersion();
+        this.createdVersion = config.getCreatedVersion();
         try {
-            this.metaData = new ObjectMapper().readValue(config.getMetaData(), Map.class);
-        } catch (JsonProcessingException e) {
+            this.metaData =
+                (Map<String, Object>) unmodifiable(METADATA_MAPPER.readValue(ConfigMetadataCodec.open(config.getMetaData()), Map.class));
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * @param metaData the metadata of {@code config}, already decoded
+     */
+    @SuppressWarnings("unchecked")
+    public ConfigDTO(Config config, Map<String, Object> metaData) {
+        this.name = config.getName();
+        this.version = config.getVersion();
+        this.createdVersion = config.getCreatedVersion();
+        this.metaData = (Map<String, Object>) unmodifiable(metaData);
+    }
+
     public ConfigDTO() {}
 
     public String getName() {
@@ -45,6 +79,14 @@ public class ConfigDTO {
         this.name = name;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Map<String, Object> getMetaData() {
         return metaData;
     }
@@ -52,4 +94,27 @@ public class ConfigDTO {
     public void setMetaData(Map<String, Object> metaData) {
         this.metaData = metaData;
     }
+
+    public Long getCreatedVersion() {
+        return createdVersion;
+    }
+
+    public void setCreatedVersion(Long createdVersion) {
+        this.createdVersion = createdVersion;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object unmodifiable(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            ((Map<String, Object>) value).forEach((key, child) -> copy.put(key, unmodifiable(child)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            ((List<Object>) value).forEach(element -> copy.add(unmodifiable(element)));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
 }
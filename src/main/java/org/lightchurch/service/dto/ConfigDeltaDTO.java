@@ -0,0 +1,71 @@
+package org.lightchurch.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.List;
+
+/**
+ * A DTO representing the configs changed and deleted since a version of the config store.
+ * <p>
+ * Clients pass {@link #getVersion()} as the next version to sync from. When {@link #isFull()} is set, the changes could
+ * not be computed, e.g. because the tombstones of older deletions were purged, and {@link #getConfigs()} holds all the
+ * configs, replacing whatever the client had.
+ */
+@JsonPropertyOrder({ "version", "full", "configs", "deleted" })
+public class ConfigDeltaDTO {
+
+    @JsonProperty("version")
+    private long version;
+
+    @JsonProperty("full")
+    private boolean full;
+
+    @JsonProperty("configs")
+    private List<ConfigDTO> configs;
+
+    @JsonProperty("deleted")
+    private List<ConfigTombstoneDTO> deleted;
+
+    public ConfigDeltaDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ConfigDeltaDTO(long version, boolean full, List<ConfigDTO> configs, List<ConfigTombstoneDTO> deleted) {
+        this.version = version;
+        this.full = full;
+        this.configs = configs;
+        this.deleted = deleted;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<ConfigDTO> getConfigs() {
+        return configs;
+    }
+
+    public void setConfigs(List<ConfigDTO> configs) {
+        this.configs = configs;
+    }
+
+    public List<ConfigTombstoneDTO> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<ConfigTombstoneDTO> deleted) {
+        this.deleted = deleted;
+    }
+}
@@ -0,0 +1,87 @@
+package org.lightchurch.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * A DTO representing a change of the config store pushed to the subscribers of the config events.
+ * <p>
+ * The version is the one of the change and serves as the id of the event. A {@link Type#RESET} event is sent when the
+ * changes missed by a resuming subscriber cannot be computed: it is followed by all the configs, replacing whatever the
+ * subscriber had. A {@link Type#RESYNC} event replaces the events of a subscriber too far behind to be buffered: the
+ * changes up to its version were skipped, and are read with {@code GET /configs?sinceVersion=} from the version of the
+ * last event the subscriber applied.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "type", "name", "version", "config" })
+public class ConfigEventDTO {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        RESET,
+        RESYNC,
+    }
+
+    @JsonProperty("type")
+    private Type type;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("version")
+    private long version;
+
+    @JsonProperty("config")
+    private ConfigDTO config;
+
+    public ConfigEventDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ConfigEventDTO(Type type, String name, long version, ConfigDTO config) {
+        this.type = type;
+        this.name = name;
+        this.version = version;
+        this.config = config;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public ConfigDTO getConfig() {
+        return config;
+    }
+
+    public void setConfig(ConfigDTO config) {
+        this.config = config;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigEventDTO{type=" + type + ", name='" + name + "', version=" + version + "}";
+    }
+}
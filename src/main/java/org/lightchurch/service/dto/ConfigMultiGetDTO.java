@@ -0,0 +1,45 @@
+package org.lightchurch.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO representing the configs requested by name in one call, keyed by name in the order requested, along with the
+ * requested names that do not exist.
+ */
+@JsonPropertyOrder({ "configs", "missing" })
+public class ConfigMultiGetDTO {
+
+    @JsonProperty("configs")
+    private Map<String, ConfigDTO> configs;
+
+    @JsonProperty("missing")
+    private List<String> missing;
+
+    public ConfigMultiGetDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ConfigMultiGetDTO(Map<String, ConfigDTO> configs, List<String> missing) {
+        this.configs = configs;
+        this.missing = missing;
+    }
+
+    public Map<String, ConfigDTO> getConfigs() {
+        return configs;
+    }
+
+    public void setConfigs(Map<String, ConfigDTO> configs) {
+        this.configs = configs;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+}
@@ -0,0 +1,58 @@
+package org.lightchurch.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The serialized response body of one or more configs, in one of the {@link org.lightchurch.service.ConfigFormat formats},
+ * kept so that reads are written out without being encoded again.
+ */
+public class ConfigPayload implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long version;
+
+    private final byte[] body;
+
+    private final byte[] gzip;
+
+    private final String hash;
+
+    /**
+     * @param version the version of the config, or of the config store for an aggregate payload
+     * @param body    the encoded body
+     * @param gzip    the gzip-compressed body, or {@code null} if it is not pre-compressed
+     */
+    public ConfigPayload(long version, byte[] body, byte[] gzip) {
+        this(version, body, gzip, null);
+    }
+
+    /**
+     * @param version the version of the config, or of the config store for an aggregate payload
+     * @param body    the encoded body
+     * @param gzip    the gzip-compressed body, or {@code null} if it is not pre-compressed
+     * @param hash    the hash of the body, identifying it instead of the version, or {@code null}
+     */
+    public ConfigPayload(long version, byte[] body, byte[] gzip, String hash) {
+        this.version = version;
+        this.body = body;
+        this.gzip = gzip;
+        this.hash = hash;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+}
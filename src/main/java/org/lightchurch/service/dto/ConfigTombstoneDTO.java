@@ -0,0 +1,43 @@
+package org.lightchurch.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.lightchurch.domain.ConfigTombstone;
+
+/**
+ * A DTO representing the deletion of a config.
+ */
+@JsonPropertyOrder({ "name", "version" })
+public class ConfigTombstoneDTO {
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("version")
+    private Long version;
+
+    public ConfigTombstoneDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ConfigTombstoneDTO(ConfigTombstone tombstone) {
+        this.name = tombstone.getName();
+        this.version = tombstone.getVersion();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,48 @@
+package org.lightchurch.web.rest;
+
+import org.lightchurch.security.AuthoritiesConstants;
+import org.lightchurch.service.ConfigService;
+import org.lightchurch.service.UserService;
+import org.lightchurch.service.dto.CacheInvalidationDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller receiving the cache evictions sent by the other instances, see
+ * {@link org.lightchurch.service.CacheInvalidationService}.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class CacheInvalidationResource {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationResource.class);
+
+    private final ConfigService configService;
+
+    private final UserService userService;
+
+    public CacheInvalidationResource(ConfigService configService, UserService userService) {
+        this.configService = configService;
+        this.userService = userService;
+    }
+
+    /**
+     * {@code POST  /admin/cache-invalidations} : Evicts the configs and users changed by another instance.
+     *
+     * @param invalidation the evictions to apply.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, acknowledging the evictions.
+     */
+    @PostMapping("/cache-invalidations")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.CACHE_PEER + "\")")
+    public ResponseEntity<Void> invalidateCaches(@RequestBody CacheInvalidationDTO invalidation) {
+        log.debug("REST request to apply cache evictions of a peer : {}", invalidation);
+        if (!invalidation.getConfigNames().isEmpty()) {
+            configService.refreshConfigs(invalidation.getConfigNames());
+        }
+        userService.evictUsers(invalidation.getUserLogins(), invalidation.getUserEmails());
+        return ResponseEntity.noContent().build();
+    }
+}
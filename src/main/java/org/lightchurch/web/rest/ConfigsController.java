@@ -1,24 +1,64 @@
 package org.lightchurch.web.rest;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import org.lightchurch.config.ApplicationProperties;
 import org.lightchurch.domain.Config;
 import org.lightchurch.repository.ConfigsRepository;
+import org.lightchurch.service.ConfigEventService;
+import org.lightchurch.service.ConfigFormat;
+import org.lightchurch.service.ConfigPatchConflictException;
+import org.lightchurch.service.ConfigPatches;
+import org.lightchurch.service.ConfigPreconditionFailedException;
+import org.lightchurch.service.ConfigQuery;
 import org.lightchurch.service.ConfigService;
+import org.lightchurch.service.ConfigWatchService;
+import org.lightchurch.service.ConfigWriteCoalescer;
+import org.lightchurch.service.InvalidConfigPatchException;
+import org.lightchurch.service.dto.ConfigBulkOperationDTO;
+import org.lightchurch.service.dto.ConfigBulkResultDTO;
 import org.lightchurch.service.dto.ConfigDTO;
+import org.lightchurch.service.dto.ConfigDeltaDTO;
+import org.lightchurch.service.dto.ConfigEventDTO;
+import org.lightchurch.service.dto.ConfigMultiGetDTO;
+import org.lightchurch.service.dto.ConfigPayload;
 import org.lightchurch.web.rest.errors.BadRequestAlertException;
 import org.lightchurch.web.rest.errors.NameAlreadyUsedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.server.ResponseStatusException;
 import tech.jhipster.web.util.ResponseUtil;
 
 /**
@@ -31,18 +71,241 @@ import tech.jhipster.web.util.ResponseUtil;
 @RestController
 public class ConfigsController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String SEARCH_QUERY_PARAM = "q";
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+    private static final String JSON_PATCH_JSON_VALUE = "application/json-patch+json";
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
     private final Logger logger = LoggerFactory.getLogger(ConfigsController.class);
     private final ConfigService configService;
+    private final ConfigWatchService configWatchService;
+    private final ConfigEventService configEventService;
+    private final ConfigWriteCoalescer configWriteCoalescer;
     private final ConfigsRepository configsRepository;
+    private final ApplicationProperties applicationProperties;
 
-    public ConfigsController(ConfigService configService, ConfigsRepository configsRepository) {
+    public ConfigsController(
+        ConfigService configService,
+        ConfigWatchService configWatchService,
+        ConfigEventService configEventService,
+        ConfigWriteCoalescer configWriteCoalescer,
+        ConfigsRepository configsRepository,
+        ApplicationProperties applicationProperties
+    ) {
         this.configService = configService;
+        this.configWatchService = configWatchService;
+        this.configEventService = configEventService;
+        this.configWriteCoalescer = configWriteCoalescer;
         this.configsRepository = configsRepository;
+        this.applicationProperties = applicationProperties;
     }
 
+    /**
+     * {@code GET /configs} : get all the configs.
+     * <p>
+     * The pre-serialized body kept by {@link ConfigService} is written as is, gzip-compressed if the client accepts it. It
+     * is JSON, or Smile or CBOR when the {@code Accept} header prefers them.
+     * The ETag is the version of the config store, qualified by the format and coding as described in
+     * {@link #eTag(String, ConfigFormat, boolean)}. A matching {@code If-None-Match} is answered with
+     * {@code 304 (Not Modified)}, from the version alone when the body would not be gzip-compressed anyway.
+     * <p>
+     * {@code HEAD /configs} answers that ETag without building the body, for clients learning the version of the config
+     * store to sync from with {@code sinceVersion} or {@code /configs/watch}.
+     *
+     * @throws IOException if the body cannot be written
+     */
     @GetMapping("/configs")
-    public ResponseEntity<List<ConfigDTO>> getAllConfigs() {
-        return new ResponseEntity<>(configService.getAllConfig(), HttpStatus.OK);
+    public void getAllConfigs(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ConfigFormat format = negotiateFormat(request);
+        varyOnFormatAndCoding(response);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            response.setHeader(
+                HttpHeaders.ETAG,
+                mayGzip(request)
+                    ? eTag(configService.getAllConfigPayload(format), format, request)
+                    : eTag(String.valueOf(configService.getStoreVersion()), format, false)
+            );
+            return;
+        }
+        boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (
+            conditional &&
+            !mayGzip(request) &&
+            isNotModified(eTag(String.valueOf(configService.getStoreVersion()), format, false), request, response)
+        ) {
+            return;
+        }
+        ConfigPayload payload = configService.getAllConfigPayload(format);
+        if (conditional && mayGzip(request) && isNotModified(eTag(payload, format, request), request, response)) {
+            return;
+        }
+        writePayload(payload, format, request, response);
+    }
+
+    /**
+     * {@code GET /configs?sinceVersion=:version} : get the configs changed and deleted since a version of the config store.
+     *
+     * @param sinceVersion the version the client is up to date with, i.e. the {@code version} of its previous sync.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the changes, or all the configs when
+     * the changes since that version cannot be computed any more.
+     */
+    @GetMapping(value = "/configs", params = "sinceVersion")
+    public ResponseEntity<ConfigDeltaDTO> getConfigChanges(@RequestParam long sinceVersion) {
+        logger.debug("REST request to get config changes since version {}", sinceVersion);
+        return new ResponseEntity<>(configService.getConfigChanges(sinceVersion), HttpStatus.OK);
+    }
+
+    /**
+     * {@code GET /configs?size=:size&after=:after} : get a page of the configs, in name order.
+     * <p>
+     * Pages are keyed by the name of the last config of the previous page rather than by offset, so that every page is
+     * read through the primary key index. The {@code Link} header holds the URL of the next page, if any.
+     *
+     * @param size  the maximum number of configs to return, at most {@value #MAX_PAGE_SIZE}.
+     * @param after the name of the last config of the previous page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the configs of the page.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the size is out of range.
+     */
+    @GetMapping(value = "/configs", params = "size")
+    public ResponseEntity<List<ConfigDTO>> getConfigsPage(@RequestParam int size, @RequestParam(required = false) String after) {
+        logger.debug("REST request to get {} configs after {}", size, after);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestAlertException("Page size must be between 1 and " + MAX_PAGE_SIZE, "config", "pagesizeinvalid");
+        }
+        List<ConfigDTO> page = configService.getConfigsPage(after, size);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.size() == size) {
+            String next = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .replaceQueryParam("after", page.get(page.size() - 1).getName())
+                .encode()
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(page, headers, HttpStatus.OK);
+    }
+
+    /**
+     * {@code GET /configs} with {@code Accept: application/x-ndjson} : stream all the configs as newline delimited JSON,
+     * in name order, each config being written as soon as it is read from the database.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the stream of configs.
+     */
+    @GetMapping(value = "/configs", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllConfigs() {
+        logger.debug("REST request to stream all configs");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(configService::writeAllConfigs);
+    }
+
+    /**
+     * {@code GET /configs?names=:names} : get many configs by name in one call.
+     *
+     * @param names the comma separated names of the configs to get.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the configs keyed by name, and the missing names.
+     */
+    @GetMapping(value = "/configs", params = "names")
+    public ResponseEntity<ConfigMultiGetDTO> getConfigs(@RequestParam List<String> names) {
+        logger.debug("REST request to get {} configs by name", names.size());
+        return ResponseEntity.ok(configService.getConfigs(names));
+    }
+
+    /**
+     * {@code POST /configs/_mget} : get many configs by name in one call, for lists of names too long for a query string.
+     *
+     * @param names the names of the configs to get.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the configs keyed by name, and the missing names.
+     */
+    @PostMapping("/configs/_mget")
+    public ResponseEntity<ConfigMultiGetDTO> getConfigsByPost(@RequestBody List<String> names) {
+        logger.debug("REST request to get {} configs by name", names.size());
+        return ResponseEntity.ok(configService.getConfigs(names));
+    }
+
+    /**
+     * {@code GET /configs/watch?version=:version} : wait for the config store to change.
+     * <p>
+     * The request is parked, without holding a thread, until a config store version newer than {@code version} is
+     * committed or the watch timeout elapses.
+     *
+     * @param version the config store version known to the client.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the changes since {@code version}, or
+     * with status {@code 304 (Not Modified)} if nothing changed before the timeout.
+     */
+    @GetMapping("/configs/watch")
+    public DeferredResult<ResponseEntity<ConfigDeltaDTO>> watchConfigs(@RequestParam long version) {
+        logger.debug("REST request to watch configs since version {}", version);
+        return watch(configWatchService.watchStore(version), () -> ResponseEntity.ok(configService.getConfigChanges(version)));
+    }
+
+    /**
+     * {@code GET /configs/:name/watch?version=:version} : wait for the "name" config to change.
+     * <p>
+     * The request is parked, without holding a thread, until the config is created, updated or deleted at a version
+     * newer than {@code version} or the watch timeout elapses.
+     *
+     * @param name    the name of the config to watch.
+     * @param version the config version known to the client, {@code 0} to wait for the config to be created.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the changed config, with status
+     * {@code 404 (Not Found)} if it was deleted, or with status {@code 304 (Not Modified)} if nothing changed before the timeout.
+     */
+    @GetMapping("/configs/{name}/watch")
+    public DeferredResult<ResponseEntity<ConfigDTO>> watchConfig(@PathVariable String name, @RequestParam long version) {
+        logger.debug("REST request to watch config {} since version {}", name, version);
+        return watch(
+            configWatchService.watchConfig(name, version),
+            () -> ResponseUtil.wrapOrNotFound(configService.getConfigByName(name), new HttpHeaders())
+        );
+    }
+
+    private <T> DeferredResult<ResponseEntity<T>> watch(CompletableFuture<Long> changed, Supplier<ResponseEntity<T>> response) {
+        long timeout = TimeUnit.SECONDS.toMillis(applicationProperties.getConfigs().getWatch().getTimeoutSeconds());
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(timeout, ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        result.onCompletion(() -> changed.cancel(false));
+        changed
+            .thenApply(version -> response.get())
+            .whenComplete(
+                (body, error) -> {
+                    if (error == null) {
+                        result.setResult(body);
+                    } else if (!changed.isCancelled()) {
+                        result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+                    }
+                }
+            );
+        return result;
+    }
+
+    /**
+     * {@code GET /configs/events} : stream the changes of the config store as server-sent events.
+     * <p>
+     * Every event is named after its type, has the version of the change as id and the change as data. A subscriber
+     * reconnecting with {@code Last-Event-ID} first receives the changes it missed. A subscriber too far behind receives a
+     * {@code resync} event instead of the changes it skipped, see {@link ConfigEventDTO}.
+     *
+     * @param lastEventId the version of the last event received, if resuming.
+     * @return the event stream.
+     */
+    @GetMapping(value = "/configs/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamConfigEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        logger.debug("REST request to stream config events from version {}", lastEventId);
+        long timeout = TimeUnit.MINUTES.toMillis(applicationProperties.getConfigs().getEvents().getTimeoutMinutes());
+        SseEmitter emitter = new SseEmitter(timeout);
+        ConfigEventService.Subscription subscription = configEventService.subscribe(
+            lastEventId,
+            event ->
+                emitter.send(
+                    SseEmitter
+                        .event()
+                        .id(String.valueOf(event.getVersion()))
+                        .name(event.getType().name().toLowerCase(Locale.ROOT))
+                        .data(event, MediaType.APPLICATION_JSON)
+                )
+        );
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return emitter;
     }
 
     /**
@@ -53,71 +316,256 @@ public class ConfigsController {
      * @param configDTO config to be created
      * @return Created Config
      * @throws URISyntaxException       if the Location URI syntax is incorrect.
-     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the name is already used
-     * @
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the name is already used, or reserved for the
+     *                                  endpoints under {@code /configs}, e.g. {@code watch}
      */
     @PostMapping("/configs")
     public ResponseEntity<Config> createConfig(@Valid @RequestBody ConfigDTO configDTO) throws URISyntaxException {
         logger.info("REST request to create config: {}", configDTO);
-
-        configsRepository
-            .findByName(configDTO.getName())
-            .ifPresent(
-                c -> {
-                    throw new NameAlreadyUsedException();
-                }
-            );
         Config config = configService.createConfig(configDTO);
         return new ResponseEntity<>(config, HttpStatus.CREATED);
     }
 
+    /**
+     * {@code POST /configs/_bulk} : upsert and delete configs in one transaction.
+     * <p>
+     * Either all the operations are applied or none is.
+     *
+     * @param operations the operations to apply, in order.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of every operation.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if an operation has no name, or an upsert no metadata or a
+     *                                  reserved name.
+     */
+    @PostMapping("/configs/_bulk")
+    public ResponseEntity<List<ConfigBulkResultDTO>> bulkConfigs(@RequestBody List<ConfigBulkOperationDTO> operations) {
+        logger.debug("REST request to apply {} bulk config operations", operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            ConfigBulkOperationDTO operation = operations.get(i);
+            if (
+                operation == null ||
+                operation.getOp() == null ||
+                operation.getName() == null ||
+                (operation.getOp() == ConfigBulkOperationDTO.Op.UPSERT && operation.getMetaData() == null)
+            ) {
+                throw new BadRequestAlertException("Invalid bulk operation at index " + i, "config", "bulkoperationinvalid");
+            }
+        }
+        return ResponseEntity.ok(configService.bulkConfigs(operations));
+    }
+
     /**
      * {@code PUT /configs/:name} : Updates the "name" Config.
+     * <p>
+     * With an {@code If-Match} header holding the ETag of the config, the update only happens if the config is still at
+     * that version. The ETag of the updated config is returned.
      *
      * @param configDTO the new config detils
+     * @param ifMatch   the {@code If-Match} header, if any
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated config.
      * @throws NameAlreadyUsedException {@code 400 (Bad Request)} if the email is already in use.
+     * @throws ConfigPreconditionFailedException {@code 412 (Precondition Failed)} if the config is not at the version of {@code If-Match}.
      */
     @PutMapping("/configs/{name}")
-    public ResponseEntity<ConfigDTO> updateConfig(@PathVariable String name, @Valid @RequestBody ConfigDTO configDTO) {
+    public ResponseEntity<ConfigDTO> updateConfig(
+        @PathVariable String name,
+        @Valid @RequestBody ConfigDTO configDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
         logger.debug("REST request to update config with name: {}", name);
         Optional<Config> existingConfig = configsRepository.findByName(name);
         //        When updating to an already existing config name
         if (existingConfig.isPresent() && (!name.equalsIgnoreCase(configDTO.getName()))) throw new NameAlreadyUsedException();
-        Optional<ConfigDTO> updatedDto = configService.updateConfig(name, configDTO);
+        Optional<ConfigDTO> updatedDto = configService.updateConfig(name, configDTO, expectedVersions(ifMatch));
+
+        HttpHeaders headers = new HttpHeaders();
+        updatedDto.ifPresent(dto -> headers.setETag(eTag(dto.getVersion())));
+        return ResponseUtil.wrapOrNotFound(updatedDto, headers);
+    }
+
+    /**
+     * {@code PUT /configs/:name?coalesce=true} : Updates the "name" Config along with the other updates of the coming
+     * few milliseconds.
+     * <p>
+     * Updates of the same config within that window are merged, the last one winning, and all of them are applied in
+     * one transaction, so that configs updated at a high rate cost one write per window. The response is sent once the
+     * update is committed, with the config as left by the last update merged with this one.
+     *
+     * @param configDTO the new config detils
+     * @param ifMatch   the {@code If-Match} header, if any
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated config.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the update is conditional, as merged updates cannot be.
+     */
+    @PutMapping(value = "/configs/{name}", params = "coalesce=true")
+    public CompletableFuture<ResponseEntity<ConfigDTO>> updateConfigCoalesced(
+        @PathVariable String name,
+        @Valid @RequestBody ConfigDTO configDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        logger.debug("REST request to update config with name: {}, coalesced", name);
+        if (ifMatch != null) {
+            throw new BadRequestAlertException("Conditional updates cannot be coalesced", "config", "coalesceconditional");
+        }
+        if (!name.equalsIgnoreCase(configDTO.getName()) && configsRepository.findByName(name).isPresent()) {
+            throw new NameAlreadyUsedException();
+        }
+        return configWriteCoalescer
+            .updateConfig(name, configDTO)
+            .thenApply(
+                updatedDto -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    updatedDto.ifPresent(dto -> headers.setETag(eTag(dto.getVersion())));
+                    return ResponseUtil.wrapOrNotFound(updatedDto, headers);
+                }
+            );
+    }
+
+    /**
+     * {@code PATCH /configs/:name} : Updates part of the metadata of the "name" Config with a JSON Merge Patch (RFC 7386).
+     *
+     * @param patch   the merge patch, relative to the metadata root
+     * @param ifMatch the {@code If-Match} header, if any
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the patched config.
+     * @throws InvalidConfigPatchException {@code 400 (Bad Request)} if the patched metadata is not an object.
+     * @throws ConfigPreconditionFailedException {@code 412 (Precondition Failed)} if the config is not at the version of {@code If-Match}.
+     */
+    @PatchMapping(value = "/configs/{name}", consumes = MERGE_PATCH_JSON_VALUE)
+    public ResponseEntity<ConfigDTO> mergePatchConfig(
+        @PathVariable String name,
+        @RequestBody JsonNode patch,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        logger.debug("REST request to merge patch config with name: {}", name);
+        return patchConfig(name, metaData -> ConfigPatches.mergePatch(metaData, patch), ifMatch);
+    }
+
+    /**
+     * {@code PATCH /configs/:name} : Updates part of the metadata of the "name" Config with a JSON Patch (RFC 6902).
+     * <p>
+     * The operations are applied all or none: a failing {@code test} leaves the config as is.
+     *
+     * @param patch   the operations, with paths relative to the metadata root
+     * @param ifMatch the {@code If-Match} header, if any
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the patched config.
+     * @throws InvalidConfigPatchException {@code 400 (Bad Request)} if the patch is malformed.
+     * @throws ConfigPatchConflictException {@code 409 (Conflict)} if an operation addresses a missing value or a {@code test} fails.
+     * @throws ConfigPreconditionFailedException {@code 412 (Precondition Failed)} if the config is not at the version of {@code If-Match}.
+     */
+    @PatchMapping(value = "/configs/{name}", consumes = JSON_PATCH_JSON_VALUE)
+    public ResponseEntity<ConfigDTO> jsonPatchConfig(
+        @PathVariable String name,
+        @RequestBody JsonNode patch,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        logger.debug("REST request to JSON patch config with name: {}", name);
+        return patchConfig(name, metaData -> ConfigPatches.jsonPatch(metaData, patch), ifMatch);
+    }
 
-        return ResponseUtil.wrapOrNotFound(updatedDto, new HttpHeaders());
+    private ResponseEntity<ConfigDTO> patchConfig(String name, UnaryOperator<JsonNode> patch, String ifMatch) {
+        Optional<ConfigDTO> patchedDto = configService.patchConfig(name, patch, expectedVersions(ifMatch));
+        HttpHeaders headers = new HttpHeaders();
+        patchedDto.ifPresent(dto -> headers.setETag(eTag(dto.getVersion())));
+        return ResponseUtil.wrapOrNotFound(patchedDto, headers);
     }
 
     /**
      * {@code DELETE /configs/:name} : delete the "name" Config.
+     * <p>
+     * With an {@code If-Match} header holding the ETag of the config, the delete only happens if the config is still at
+     * that version.
      *
-     * @param name the name of the config to delete.
+     * @param name    the name of the config to delete.
+     * @param ifMatch the {@code If-Match} header, if any
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @throws ConfigPreconditionFailedException {@code 412 (Precondition Failed)} if the config is not at the version of {@code If-Match}.
      */
     @DeleteMapping("/configs/{name}")
-    public ResponseEntity<Void> deleteConfig(@PathVariable String name) {
+    public ResponseEntity<Void> deleteConfig(
+        @PathVariable String name,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
         logger.debug("REST request to delete config: {}", name);
-        configService.deleteConfig(name);
+        configService.deleteConfig(name, expectedVersions(ifMatch));
         return ResponseEntity.noContent().headers(new HttpHeaders()).build();
     }
 
     /**
-     * {@code GET /users/:name} : get the "name" config.
+     * {@code GET /configs/:name} : get the "name" config.
+     * <p>
+     * The pre-serialized body kept by {@link ConfigService} is written as is, gzip-compressed if the client accepts it. It
+     * is JSON, or Smile or CBOR when the {@code Accept} header prefers them.
+     * The ETag is the version of the config, qualified by the format and coding as described in
+     * {@link #eTag(String, ConfigFormat, boolean)}. A matching {@code If-None-Match} is answered with
+     * {@code 304 (Not Modified)}, from the version alone when the body would not be gzip-compressed anyway.
      *
-     * @param name the login of the user to find.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the "login" user, or with status {@code 404 (Not Found)}.
+     * @param name the name of the config to find.
+     * @throws ResponseStatusException {@code 404 (Not Found)} if the config does not exist.
+     * @throws IOException             if the body cannot be written
      */
     @GetMapping("/configs/{name}")
-    public ResponseEntity<ConfigDTO> getConfigByName(@PathVariable String name) {
-        logger.debug("REST request to delete config: {}", name);
-        Optional<ConfigDTO> configByName = configService.getConfigByName(name);
+    public void getConfigByName(@PathVariable String name, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.debug("REST request to get config: {}", name);
+        ConfigFormat format = negotiateFormat(request);
+        varyOnFormatAndCoding(response);
+        boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (conditional && !mayGzip(request)) {
+            Optional<Long> version = configService.getConfigVersion(name);
+            if (version.isPresent() && isNotModified(eTag(String.valueOf(version.get()), format, false), request, response)) {
+                return;
+            }
+        }
+        ConfigPayload payload = configService
+            .getConfigPayload(name, format)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (conditional && mayGzip(request) && isNotModified(eTag(payload, format, request), request, response)) {
+            return;
+        }
+        writePayload(payload, format, request, response);
+    }
 
-        return ResponseUtil.wrapOrNotFound(configByName, new HttpHeaders());
+    /**
+     * {@code GET /configs/:name/metadata/:path} : get one subtree of the metadata of the "name" config.
+     * <p>
+     * The path is a JSON Pointer relative to the metadata root, {@code ~1} and {@code ~0} escaping {@code /} and
+     * {@code ~} in keys, and array elements being addressed by index. Only the subtree is serialized, in the format
+     * negotiated as for {@link #getConfigByName}, from the parsed metadata cached by {@link ConfigService}. The ETag is
+     * the hash of the serialized subtree, so that a matching {@code If-None-Match} is answered with
+     * {@code 304 (Not Modified)} as long as that subtree is unchanged.
+     *
+     * @param name the name of the config.
+     * @throws ResponseStatusException {@code 404 (Not Found)} if the config does not exist, or has no value at the path.
+     * @throws IOException             if the body cannot be written
+     */
+    @GetMapping({ "/configs/{name}/metadata", "/configs/{name}/metadata/**" })
+    public void getConfigMetadata(@PathVariable String name, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        String pointer = PATH_MATCHER.extractPathWithinPattern(
+            (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+            (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)
+        );
+        List<String> path = new ArrayList<>();
+        if (!pointer.isEmpty()) {
+            for (String token : pointer.split("/")) {
+                path.add(token.replace("~1", "/").replace("~0", "~"));
+            }
+        }
+        logger.debug("REST request to get metadata {} of config: {}", path, name);
+        ConfigFormat format = negotiateFormat(request);
+        varyOnFormatAndCoding(response);
+        ConfigPayload payload = configService
+            .getConfigMetadataPayload(name, path, format)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (conditional && isNotModified(eTag(payload, format, request), request, response)) {
+            return;
+        }
+        writePayload(payload, format, request, response);
     }
 
     /**
      * {@code GET /search/:params} : search for configs meeting criteria "params" .
+     * <p>
+     * Either {@code q} holds a query as described in {@link ConfigQuery}, e.g. {@code q=limits.cpu.value = 300m AND replicas >= 3},
+     * or every parameter is an equality on a metadata path, e.g. {@code metadata.monitoring.enabled=true}, all of which must hold.
      *
      * @param params Filter criteria
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body of a List of all configs meeting the criteria or a Empty list
@@ -126,6 +574,148 @@ public class ConfigsController {
     @GetMapping("/search")
     public ResponseEntity<List<ConfigDTO>> searchConfigs(@RequestParam Map<String, String> params) throws JsonProcessingException {
         logger.info("REST search request params : {}", new ObjectMapper().writeValueAsString(params));
-        return new ResponseEntity<>(configService.searchConfigs(params), HttpStatus.OK);
+        List<ConfigDTO> configs = params.containsKey(SEARCH_QUERY_PARAM)
+            ? configService.searchConfigs(params.get(SEARCH_QUERY_PARAM))
+            : configService.searchConfigs(ConfigQuery.allEqual(params));
+        return new ResponseEntity<>(configs, HttpStatus.OK);
+    }
+
+    private static boolean isNotModified(String eTag, HttpServletRequest request, HttpServletResponse response) {
+        return new ServletWebRequest(request, response).checkNotModified(eTag);
+    }
+
+    /**
+     * @return the ETag of the JSON representation of a config at a version, as sent in response to writes
+     */
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * A strong ETag names one body: {@code "<base>"} for the identity-coded JSON, followed by {@code -smile} or
+     * {@code -cbor} for the binary formats and by {@code -gzip} for the gzip-compressed bodies, e.g.
+     * {@code "42-smile-gzip"}. A client switching format or coding is thus never answered {@code 304 (Not Modified)}
+     * for a body it does not hold.
+     *
+     * @param base   the version, or hash, of the data
+     * @param format the format of the body
+     * @param gzip   whether the body is gzip-compressed
+     * @return the ETag of the body
+     */
+    private static String eTag(String base, ConfigFormat format, boolean gzip) {
+        StringBuilder eTag = new StringBuilder("\"").append(base);
+        if (format != ConfigFormat.JSON) {
+            eTag.append('-').append(format.name().toLowerCase(Locale.ROOT));
+        }
+        if (gzip) {
+            eTag.append("-gzip");
+        }
+        return eTag.append('"').toString();
+    }
+
+    /**
+     * @return the ETag of the body of {@code payload} sent in response to {@code request}
+     */
+    private static String eTag(ConfigPayload payload, ConfigFormat format, HttpServletRequest request) {
+        String base = payload.getHash() != null ? payload.getHash() : String.valueOf(payload.getVersion());
+        return eTag(base, format, sendsGzip(payload, request));
+    }
+
+    /**
+     * @param ifMatch an {@code If-Match} header
+     * @return the versions of its strong ETags, of any format and coding, {@code null} if absent or {@code *} as any
+     * existing config matches
+     */
+    private static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            // Weak ETags never match, If-Match using the strong comparison
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                String version = value.substring(1, value.length() - 1);
+                int suffix = version.indexOf('-');
+                try {
+                    versions.add(Long.parseLong(suffix < 0 ? version : version.substring(0, suffix)));
+                } catch (NumberFormatException e) {
+                    // Not an ETag of this API, which matches no config
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * @return the format of the most preferred media type of the {@code Accept} header, JSON if none is available
+     */
+    private static ConfigFormat negotiateFormat(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return ConfigFormat.JSON;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return ConfigFormat.JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            for (ConfigFormat format : ConfigFormat.values()) {
+                if (mediaType.getQualityValue() > 0 && mediaType.includes(format.getMediaType())) {
+                    return format;
+                }
+            }
+        }
+        return ConfigFormat.JSON;
+    }
+
+    private void writePayload(ConfigPayload payload, ConfigFormat format, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        byte[] body = payload.getBody();
+        response.setContentType(format.getMediaType().toString());
+        response.setHeader(HttpHeaders.ETAG, eTag(payload, format, request));
+        if (sendsGzip(payload, request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = payload.getGzip();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Set before answering {@code 304 (Not Modified)} too, which must carry the headers of the {@code 200 (OK)}.
+     */
+    private static void varyOnFormatAndCoding(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    /**
+     * @return whether a body may be gzip-compressed for {@code request}, which only its payload tells for sure: the
+     * payloads smaller than {@code gzip-min-size} have no gzip copy
+     */
+    private boolean mayGzip(HttpServletRequest request) {
+        return applicationProperties.getConfigs().getPayload().isGzip() && acceptsGzip(request);
+    }
+
+    private static boolean sendsGzip(ConfigPayload payload, HttpServletRequest request) {
+        return payload.getGzip() != null && acceptsGzip(request);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 }
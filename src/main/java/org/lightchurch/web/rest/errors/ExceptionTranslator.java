@@ -142,6 +142,19 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleConfigNameAlreadyUsedException(
+        org.lightchurch.service.ConfigNameAlreadyUsedException ex,
+        NativeWebRequest request
+    ) {
+        NameAlreadyUsedException problem = new NameAlreadyUsedException();
+        return create(
+            problem,
+            request,
+            HeaderUtil.createFailureAlert(applicationName, true, problem.getEntityName(), problem.getErrorKey(), problem.getMessage())
+        );
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleInvalidPasswordException(
         org.lightchurch.service.InvalidPasswordException ex,
@@ -150,6 +163,58 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleReservedConfigNameException(
+        org.lightchurch.service.ReservedConfigNameException ex,
+        NativeWebRequest request
+    ) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "config", "namereserved"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidConfigQueryException(
+        org.lightchurch.service.InvalidConfigQueryException ex,
+        NativeWebRequest request
+    ) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "config", "queryinvalid"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidConfigPatchException(
+        org.lightchurch.service.InvalidConfigPatchException ex,
+        NativeWebRequest request
+    ) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "config", "patchinvalid"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleConfigPatchConflictException(
+        org.lightchurch.service.ConfigPatchConflictException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.CONFLICT)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_PATCH_CONFLICT)
+            .build();
+        return create(ex, problem, request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleConfigPreconditionFailedException(
+        org.lightchurch.service.ConfigPreconditionFailedException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.PRECONDITION_FAILED)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_PRECONDITION_FAILED)
+            .build();
+        return create(ex, problem, request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(
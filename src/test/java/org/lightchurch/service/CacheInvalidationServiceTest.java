@@ -0,0 +1,124 @@
+package org.lightchurch.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withNoContent;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.security.jwt.TokenProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+/**
+ * Unit tests for {@link CacheInvalidationService}.
+ */
+class CacheInvalidationServiceTest {
+
+    private static final String PEER_URL = "http://peer:8081" + CacheInvalidationService.PEER_INVALIDATION_PATH;
+
+    private MockRestServiceServer server;
+
+    private Registration self;
+
+    private ObjectProvider<Registration> registration;
+
+    private CacheInvalidationService cacheInvalidationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        self = mock(Registration.class);
+        when(self.getServiceId()).thenReturn("lightchurch");
+        when(self.getInstanceId()).thenReturn("lightchurch:self");
+        registration = mock(ObjectProvider.class);
+        when(registration.getIfAvailable()).thenReturn(self);
+        DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+        when(discoveryClient.getInstances("lightchurch"))
+            .thenReturn(
+                List.of(
+                    new DefaultServiceInstance("lightchurch:self", "lightchurch", "self", 8081, false),
+                    new DefaultServiceInstance("lightchurch:peer", "lightchurch", "peer", 8081, false)
+                )
+            );
+        TokenProvider tokenProvider = mock(TokenProvider.class);
+        when(tokenProvider.createToken(any(), anyLong())).thenReturn("token");
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getInvalidation().setRetryBackoffMs(0);
+
+        MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+        cacheInvalidationService =
+            new CacheInvalidationService(
+                discoveryClient,
+                registration,
+                tokenProvider,
+                new RestTemplateBuilder(customizer),
+                Runnable::run,
+                applicationProperties
+            );
+        server = customizer.getServer();
+    }
+
+    @Test
+    void sendsBatchedEvictionsToPeers() {
+        server
+            .expect(requestTo(PEER_URL))
+            .andExpect(method(HttpMethod.POST))
+            .andExpect(header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+            .andExpect(jsonPath("$.configNames", org.hamcrest.Matchers.containsInAnyOrder("a", "b")))
+            .andExpect(jsonPath("$.userLogins[0]").value("admin"))
+            .andRespond(withNoContent());
+
+        cacheInvalidationService.invalidateConfigs(Set.of("a"));
+        cacheInvalidationService.invalidateConfigs(Set.of("b"));
+        cacheInvalidationService.invalidateUser("admin", null);
+        cacheInvalidationService.sendBatches();
+        // Nothing left to send
+        cacheInvalidationService.sendBatches();
+
+        server.verify();
+    }
+
+    @Test
+    void resendsUnacknowledgedEvictions() {
+        server.expect(requestTo(PEER_URL)).andExpect(jsonPath("$.configNames[0]").value("a")).andRespond(withServerError());
+        server
+            .expect(requestTo(PEER_URL))
+            .andExpect(jsonPath("$.configNames", org.hamcrest.Matchers.containsInAnyOrder("a", "b")))
+            .andRespond(withNoContent());
+
+        cacheInvalidationService.invalidateConfigs(Set.of("a"));
+        cacheInvalidationService.sendBatches();
+        cacheInvalidationService.invalidateConfigs(Set.of("b"));
+        cacheInvalidationService.sendBatches();
+        cacheInvalidationService.sendBatches();
+
+        server.verify();
+    }
+
+    @Test
+    void dropsEvictionsWhenNotRegistered() {
+        when(registration.getIfAvailable()).thenReturn(null, self);
+
+        cacheInvalidationService.invalidateConfigs(Set.of("a"));
+        cacheInvalidationService.sendBatches();
+        // Registered afterwards: the evictions made meanwhile are not sent
+        cacheInvalidationService.sendBatches();
+
+        server.verify();
+    }
+}
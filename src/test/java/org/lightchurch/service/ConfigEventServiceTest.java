@@ -0,0 +1,70 @@
+package org.lightchurch.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.service.dto.ConfigDTO;
+import org.lightchurch.service.dto.ConfigDeltaDTO;
+import org.lightchurch.service.dto.ConfigEventDTO;
+
+/**
+ * Unit tests for {@link ConfigEventService}.
+ */
+class ConfigEventServiceTest {
+
+    private ConfigService configService;
+
+    private ConfigEventService configEventService;
+
+    @BeforeEach
+    void setUp() {
+        configService = mock(ConfigService.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getConfigs().getEvents().setBufferSize(2);
+        configEventService = new ConfigEventService(configService, Runnable::run, applicationProperties);
+    }
+
+    @Test
+    void resyncsSubscribersTooFarBehind() {
+        when(configService.getStoreVersion()).thenReturn(13L);
+        when(configService.getConfigChanges(10)).thenReturn(delta(13, 11, 12, 13));
+        List<ConfigEventDTO> events = new ArrayList<>();
+
+        configEventService.subscribe(10L, events::add);
+
+        assertThat(events).extracting(ConfigEventDTO::getType).containsExactly(ConfigEventDTO.Type.RESYNC);
+        assertThat(events.get(0).getVersion()).isEqualTo(13);
+
+        // Still subscribed
+        when(configService.getConfigChanges(13)).thenReturn(delta(14, 14));
+        configEventService.pollChanges();
+
+        assertThat(events).extracting(ConfigEventDTO::getVersion).containsExactly(13L, 14L);
+        assertThat(events.get(1).getType()).isEqualTo(ConfigEventDTO.Type.UPDATED);
+    }
+
+    private static ConfigDeltaDTO delta(long version, long... configVersions) {
+        List<ConfigDTO> configs = LongStream
+            .of(configVersions)
+            .mapToObj(
+                configVersion -> {
+                    ConfigDTO config = new ConfigDTO();
+                    config.setName("config-" + configVersion);
+                    config.setVersion(configVersion);
+                    config.setCreatedVersion(1L);
+                    return config;
+                }
+            )
+            .collect(Collectors.toList());
+        return new ConfigDeltaDTO(version, false, configs, Collections.emptyList());
+    }
+}
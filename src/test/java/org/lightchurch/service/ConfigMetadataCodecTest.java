@@ -0,0 +1,64 @@
+package org.lightchurch.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lightchurch.config.ApplicationProperties;
+
+/**
+ * Unit tests for {@link ConfigMetadataCodec}.
+ */
+class ConfigMetadataCodecTest {
+
+    private static final String SMALL_METADATA = "{\"monitoring\":{\"enabled\":\"true\"}}";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConfigMetadataCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getConfigs().getStorage().setCompressionMinSize(64);
+        codec = new ConfigMetadataCodec(new ObjectMapper(), applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void storesSmallMetadataAsIs() throws Exception {
+        Map<String, Object> metaData = Map.of("monitoring", Map.of("enabled", "true"));
+
+        byte[] frame = codec.encode(metaData);
+
+        assertThat(frame[0]).isEqualTo(ConfigMetadataCodec.PLAIN);
+        assertThat(new String(frame, 1, frame.length - 1, StandardCharsets.UTF_8)).isEqualTo(SMALL_METADATA);
+        assertThat(codec.decode(frame)).isEqualTo(metaData);
+    }
+
+    @Test
+    void compressesLargeMetadata() throws Exception {
+        Map<String, Object> metaData = Map.of("hosts", Collections.nCopies(1000, "node.eu-west-1.internal"));
+        int jsonLength = new ObjectMapper().writeValueAsBytes(metaData).length;
+
+        byte[] frame = codec.encode(metaData);
+
+        assertThat(frame[0]).isEqualTo(ConfigMetadataCodec.DEFLATE);
+        assertThat(frame.length).isLessThan(jsonLength / 10);
+        assertThat(codec.decode(frame)).isEqualTo(metaData);
+        assertThat(meterRegistry.get("configs.metadata.compression.ratio").summary().max()).isGreaterThan(10);
+        assertThat(meterRegistry.get("configs.metadata.codec").tag("operation", "decode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void readsMetadataStoredWithoutHeader() throws Exception {
+        assertThat(codec.decode(SMALL_METADATA.getBytes(StandardCharsets.UTF_8)))
+            .isEqualTo(Map.of("monitoring", Map.of("enabled", "true")));
+        assertThat(codec.decode(null)).isNull();
+    }
+}
@@ -0,0 +1,65 @@
+package org.lightchurch.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ConfigPatches}.
+ */
+class ConfigPatchesTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void mergesPatches() throws Exception {
+        JsonNode target = json("{'a':'b','c':{'d':'e','f':'g'},'h':[1]}");
+
+        JsonNode patched = ConfigPatches.mergePatch(target, json("{'a':'z','c':{'f':null},'h':{'i':1}}"));
+
+        assertThat(patched).isEqualTo(json("{'a':'z','c':{'d':'e'},'h':{'i':1}}"));
+        assertThat(ConfigPatches.mergePatch(json("{'a':'b'}"), json("['c']"))).isEqualTo(json("['c']"));
+    }
+
+    @Test
+    void appliesJsonPatches() throws Exception {
+        JsonNode target = json("{'foo':{'bar':'baz','waldo':'fred'},'qux':{'corge':'grault'},'a/b':[1,2]}");
+
+        JsonNode patched = ConfigPatches.jsonPatch(
+            target,
+            json(
+                "[{'op':'test','path':'/a~1b/1','value':2.0},{'op':'move','from':'/foo/waldo','path':'/qux/thud'}," +
+                "{'op':'add','path':'/a~1b/1','value':3},{'op':'remove','path':'/foo/bar'},{'op':'copy','from':'/qux','path':'/foo/qux'}," +
+                "{'op':'replace','path':'/a~1b/0','value':0}]"
+            )
+        );
+
+        assertThat(patched)
+            .isEqualTo(
+                json("{'foo':{'qux':{'corge':'grault','thud':'fred'}},'qux':{'corge':'grault','thud':'fred'},'a/b':[0,3,2]}")
+            );
+    }
+
+    @Test
+    void rejectsPatchesNotApplying() {
+        assertThatThrownBy(() -> ConfigPatches.jsonPatch(json("{'a':1}"), json("[{'op':'test','path':'/a','value':2}]")))
+            .isInstanceOf(ConfigPatchConflictException.class);
+        assertThatThrownBy(() -> ConfigPatches.jsonPatch(json("{'a':1}"), json("[{'op':'replace','path':'/b','value':2}]")))
+            .isInstanceOf(ConfigPatchConflictException.class);
+        assertThatThrownBy(() -> ConfigPatches.jsonPatch(json("{'a':[]}"), json("[{'op':'add','path':'/a/1','value':2}]")))
+            .isInstanceOf(ConfigPatchConflictException.class);
+        assertThatThrownBy(() -> ConfigPatches.jsonPatch(json("{'a':1}"), json("[{'op':'add','path':'a','value':2}]")))
+            .isInstanceOf(InvalidConfigPatchException.class);
+        assertThatThrownBy(() -> ConfigPatches.jsonPatch(json("{'a':{}}"), json("[{'op':'move','from':'/a','path':'/a/b'}]")))
+            .isInstanceOf(InvalidConfigPatchException.class);
+        assertThatThrownBy(() -> ConfigPatches.jsonPatch(json("{'a':1}"), json("[{'op':'add','path':'/b'}]")))
+            .isInstanceOf(InvalidConfigPatchException.class);
+    }
+
+    private JsonNode json(String json) throws Exception {
+        return mapper.readTree(json.replace('\'', '"'));
+    }
+}
@@ -0,0 +1,58 @@
+package org.lightchurch.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ConfigQuery}.
+ */
+class ConfigQueryTest {
+
+    private static final Map<String, Set<String>> ENTRIES = Map.of(
+        "limits.cpu.value",
+        Set.of("300m"),
+        "replicas",
+        Set.of("3"),
+        "regions",
+        Set.of("eu", "us")
+    );
+
+    @Test
+    void normalizesEquivalentQueries() {
+        ConfigQuery query = ConfigQuery.parse("replicas>=3 and (metadata.regions in (us, eu) or owner exists)");
+
+        assertThat(query).hasToString("((owner EXISTS OR regions IN (\"eu\", \"us\")) AND replicas >= \"3\")");
+        assertThat(ConfigQuery.parse("(owner EXISTS OR regions IN (eu, us)) AND replicas >= \"3\"")).hasToString(query.toString());
+        assertThat(query.getPaths()).containsExactlyInAnyOrder("replicas", "regions", "owner");
+    }
+
+    @Test
+    void matchesEntries() {
+        assertThat(ConfigQuery.parse("limits.cpu.value = 300m AND replicas > 2").matches(ENTRIES)).isTrue();
+        assertThat(ConfigQuery.parse("replicas < 3 OR regions = ap").matches(ENTRIES)).isFalse();
+        assertThat(ConfigQuery.parse("limits.cpu.value <= 300").matches(ENTRIES)).isFalse();
+        assertThat(ConfigQuery.parse("regions IN (ap, us) AND owner EXISTS").matches(ENTRIES)).isFalse();
+        assertThat(ConfigQuery.allEqual(Map.of("metadata.limits.cpu.value", "300m")).matches(ENTRIES)).isTrue();
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThatThrownBy(() -> ConfigQuery.parse("replicas >= many")).isInstanceOf(InvalidConfigQueryException.class);
+        assertThatThrownBy(() -> ConfigQuery.parse("replicas = 3 AND")).isInstanceOf(InvalidConfigQueryException.class);
+        assertThatThrownBy(() -> ConfigQuery.parse("(replicas = 3")).isInstanceOf(InvalidConfigQueryException.class);
+        assertThatThrownBy(() -> ConfigQuery.parse("replicas 3")).isInstanceOf(InvalidConfigQueryException.class);
+        assertThatThrownBy(() -> ConfigQuery.allEqual(Map.of())).isInstanceOf(InvalidConfigQueryException.class);
+        assertThatThrownBy(() -> ConfigQuery.parse("(".repeat(5000) + "replicas = 3" + ")".repeat(5000)))
+            .isInstanceOf(InvalidConfigQueryException.class);
+    }
+
+    @Test
+    void parsesQueriesNestedUpToTheLimit() {
+        String nested = "(".repeat(ConfigQuery.MAX_DEPTH) + "replicas = 3" + ")".repeat(ConfigQuery.MAX_DEPTH);
+        assertThat(ConfigQuery.parse(nested)).hasToString(ConfigQuery.parse("replicas = 3").toString());
+    }
+}
@@ -0,0 +1,77 @@
+package org.lightchurch.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.repository.ConfigsRepository;
+
+/**
+ * Unit tests for {@link ConfigSearchIndex}.
+ */
+class ConfigSearchIndexTest {
+
+    private ConfigSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getConfigs().getSearch().setCacheSize(2);
+        index = new ConfigSearchIndex(
+            mock(ConfigsRepository.class),
+            new ConfigMetadataCodec(new ObjectMapper(), applicationProperties, new SimpleMeterRegistry()),
+            mock(EntityManagerFactory.class),
+            applicationProperties
+        );
+        index.index("a", Map.of("region", "eu", "replicas", 3));
+        index.index("b", Map.of("region", "us", "replicas", 5));
+    }
+
+    @Test
+    void searchesAndCachesResults() {
+        ConfigQuery query = ConfigQuery.parse("region IN (eu, us) AND replicas > 4");
+
+        assertThat(index.search(query)).containsExactly("b");
+        assertThat(index.isCached(query)).isTrue();
+        assertThat(index.search(ConfigQuery.parse("replicas>4 and region in (us, eu)"))).containsExactly("b");
+    }
+
+    @Test
+    void invalidatesOnlyResultsOfChangedPaths() {
+        ConfigQuery byRegion = ConfigQuery.parse("region = eu");
+        ConfigQuery byReplicas = ConfigQuery.parse("replicas >= 3");
+        index.search(byRegion);
+        index.search(byReplicas);
+
+        index.index("b", Map.of("region", "us", "replicas", 2));
+
+        assertThat(index.isCached(byRegion)).isTrue();
+        assertThat(index.isCached(byReplicas)).isFalse();
+        assertThat(index.search(byReplicas)).containsExactly("a");
+
+        index.remove("a");
+
+        assertThat(index.search(byRegion)).isEmpty();
+        assertThat(index.search(byReplicas)).isEmpty();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResults() {
+        ConfigQuery first = ConfigQuery.parse("region = eu");
+        ConfigQuery second = ConfigQuery.parse("region = us");
+        index.search(first);
+        index.search(second);
+        index.search(first);
+
+        index.search(ConfigQuery.parse("replicas EXISTS"));
+
+        assertThat(index.isCached(first)).isTrue();
+        assertThat(index.isCached(second)).isFalse();
+    }
+}
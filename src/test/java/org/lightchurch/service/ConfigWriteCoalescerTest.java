@@ -0,0 +1,60 @@
+package org.lightchurch.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lightchurch.config.ApplicationProperties;
+import org.lightchurch.service.dto.ConfigDTO;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Unit tests for {@link ConfigWriteCoalescer}.
+ */
+class ConfigWriteCoalescerTest {
+
+    private ConfigService configService;
+
+    private ConfigWriteCoalescer configWriteCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        configService = mock(ConfigService.class);
+        configWriteCoalescer =
+            new ConfigWriteCoalescer(
+                configService,
+                mock(PlatformTransactionManager.class),
+                mock(TaskScheduler.class),
+                Runnable::run,
+                new ApplicationProperties()
+            );
+    }
+
+    @Test
+    void failsOnlyTheCallersOfAFailingUpdate() {
+        ConfigDTO good = config("good");
+        ConfigDTO bad = config("bad");
+        when(configService.updateConfig(eq("good"), any(ConfigDTO.class))).thenReturn(Optional.of(good));
+        when(configService.updateConfig(eq("bad"), any(ConfigDTO.class))).thenThrow(new InvalidConfigPatchException("bad"));
+
+        CompletableFuture<Optional<ConfigDTO>> goodUpdate = configWriteCoalescer.updateConfig("good", good);
+        CompletableFuture<Optional<ConfigDTO>> badUpdate = configWriteCoalescer.updateConfig("bad", bad);
+        configWriteCoalescer.flush();
+
+        assertThat(goodUpdate).isCompletedWithValue(Optional.of(good));
+        assertThat(badUpdate).isCompletedExceptionally();
+    }
+
+    private static ConfigDTO config(String name) {
+        ConfigDTO config = new ConfigDTO();
+        config.setName(name);
+        return config;
+    }
+}
@@ -1,32 +1,64 @@
 package org.lightchurch.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.commons.logging.Logger;
 import org.junit.platform.commons.logging.LoggerFactory;
 import org.lightchurch.IntegrationTest;
+import org.lightchurch.config.ApplicationProperties;
 import org.lightchurch.domain.Config;
+import org.lightchurch.repository.ConfigTombstoneRepository;
 import org.lightchurch.repository.ConfigsRepository;
+import org.lightchurch.security.AuthoritiesConstants;
+import org.lightchurch.service.ConfigNameAlreadyUsedException;
+import org.lightchurch.service.ConfigPreconditionFailedException;
 import org.lightchurch.service.ConfigService;
+import org.lightchurch.service.ConfigWatchService;
+import org.lightchurch.service.dto.CacheInvalidationDTO;
+import org.lightchurch.service.dto.ConfigBulkOperationDTO;
 import org.lightchurch.service.dto.ConfigDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @AutoConfigureMockMvc
 @IntegrationTest
@@ -44,15 +76,33 @@ class ConfigsControllerTest {
     @Autowired
     ConfigsRepository configsRepository;
 
+    @Autowired
+    ConfigTombstoneRepository configTombstoneRepository;
+
     @Autowired
     ConfigService configService;
 
+    @Autowired
+    ConfigWatchService configWatchService;
+
     @Autowired
     private MockMvc restUserMockMvc;
 
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private List<Config> configs;
 
     public static List<Config> createConfigs(EntityManager em) {
@@ -61,17 +111,21 @@ class ConfigsControllerTest {
         Config c1 = new Config();
         Config c2 = new Config();
         c.setName("data-src");
-        c.setMetaData("{\"monitoring\":{\"enabled\":\"true\"},\"limits\":{\"cpu\":{\"enabled\":\"false\",\"value\":\"300m\"}}}");
+        c.setMetaData(utf8("{\"monitoring\":{\"enabled\":\"true\"},\"limits\":{\"cpu\":{\"enabled\":\"false\",\"value\":\"300m\"}}}"));
         c1.setName("data-src2");
-        c1.setMetaData("{\"monitoring\":{\"enabled\":\"false\"},\"limits\":{\"cpu\":{\"enabled\":\"true\",\"value\":\"300m\"}}}");
+        c1.setMetaData(utf8("{\"monitoring\":{\"enabled\":\"false\"},\"limits\":{\"cpu\":{\"enabled\":\"true\",\"value\":\"300m\"}}}"));
         c2.setName("data-src3");
-        c2.setMetaData("{\"monitoring\":{\"enabled\":\"true\"},\"limits\":{\"cpu\":{\"enabled\":\"true\",\"value\":\"250m\"}}}");
+        c2.setMetaData(utf8("{\"monitoring\":{\"enabled\":\"true\"},\"limits\":{\"cpu\":{\"enabled\":\"true\",\"value\":\"250m\"}}}"));
         configs.add(c);
         configs.add(c1);
         configs.add(c2);
         return configs;
     }
 
+    private static byte[] utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
     @BeforeEach
     void setUp() {
         configs = createConfigs(em);
@@ -108,14 +162,93 @@ class ConfigsControllerTest {
                 assertThat(cl).hasSize(databaseSizeBeforeCreate + 1);
                 Config testConfig = cl.get(cl.size() - 1);
                 assertThat(testConfig.getName()).isEqualTo(DEFAULT_CONFIG_NAME);
-                assertThat(testConfig.getMetaData()).isEqualTo(DEFAULT_CONFIG_METADATA);
+                assertThat(new ConfigDTO(testConfig).getMetaData()).isEqualTo(configDTO.getMetaData());
             }
         );
     }
 
+    @Test
+    @Transactional
+    void createLargeConfig() throws Exception {
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(Map.of("certificate", "A".repeat(1024 * 1024)));
+        configDTO.setName(DEFAULT_CONFIG_NAME);
+
+        restUserMockMvc
+            .perform(post("/configs").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(configDTO)))
+            .andExpect(status().isCreated());
+        em.clear();
+        ConfigDTO stored = new ConfigDTO(configsRepository.findByName(DEFAULT_CONFIG_NAME).orElseThrow());
+        assertThat((String) stored.getMetaData().get("certificate")).hasSize(1024 * 1024);
+        // Stored compressed
+        Number storedSize = (Number) em
+            .createNativeQuery("select length(metadata) from configs where name = :name")
+            .setParameter("name", DEFAULT_CONFIG_NAME)
+            .getSingleResult();
+        assertThat(storedSize.longValue()).isLessThan(1024 * 1024 / 100);
+        assertThat(meterRegistry.get("configs.metadata.compression.ratio").summary().max()).isGreaterThan(100);
+    }
+
+    @Test
+    @Transactional
+    void createConfigWithReservedName() throws Exception {
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_METADATA, HashMap.class));
+        configDTO.setName("watch");
+
+        restUserMockMvc
+            .perform(post("/configs").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(configDTO)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.namereserved"));
+        restUserMockMvc
+            .perform(
+                post("/configs/_bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"op\":\"UPSERT\",\"name\":\"_mget\",\"metadata\":{}}]")
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.namereserved"));
+        assertThat(configsRepository.findAllById(List.of("watch", "_mget"))).isEmpty();
+    }
+
+    @Test
+    void createConfigWithExistingName() throws Exception {
+        configService.createConfig(new ConfigDTO(configs.get(0)));
+        try {
+            long version = configService.getStoreVersion();
+            ConfigDTO configDTO = new ConfigDTO();
+            configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_METADATA, HashMap.class));
+            configDTO.setName(CONFIG_NAME_1);
+
+            restUserMockMvc
+                .perform(post("/configs").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(configDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Config name already used!"));
+            // The failed INSERT rolled the version back
+            assertThat(configService.getStoreVersion()).isEqualTo(version);
+        } finally {
+            configService.deleteConfig(CONFIG_NAME_1);
+            configTombstoneRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional
+    void createConfigViolatingOtherConstraints() {
+        ConfigDTO configDTO = new ConfigDTO(configs.get(0));
+        configDTO.setName("n".repeat(300));
+
+        // Not mistaken for a name already used
+        assertThatThrownBy(() -> configService.createConfig(configDTO))
+            .isInstanceOf(DataIntegrityViolationException.class)
+            .isNotInstanceOf(ConfigNameAlreadyUsedException.class);
+    }
+
     @Test
     @Transactional
     void updateConfig() throws Exception {
+        configsRepository.saveAll(configs);
+        configsRepository.flush();
         ConfigDTO configDTO = new ConfigDTO();
         configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
         configDTO.setName(CONFIG_NAME_1);
@@ -132,11 +265,230 @@ class ConfigsControllerTest {
                 assertThat(cl).isPresent();
                 Config testConfig = cl.get();
                 assertThat(testConfig.getName()).isEqualTo(CONFIG_NAME_1);
-                assertThat(testConfig.getMetaData()).isEqualTo(DEFAULT_CONFIG_UPDATE_METADATA);
+                assertThat(new ConfigDTO(testConfig).getMetaData()).isEqualTo(configDTO.getMetaData());
             }
         );
     }
 
+    @Test
+    void updateConfigCoalesced() throws Exception {
+        configService.createConfig(new ConfigDTO(configs.get(0)));
+        try {
+            long version = configService.getStoreVersion();
+            ConfigDTO first = new ConfigDTO();
+            first.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_METADATA, HashMap.class));
+            first.setName(CONFIG_NAME_1);
+            ConfigDTO last = new ConfigDTO();
+            last.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+            last.setName(CONFIG_NAME_1);
+
+            MvcResult firstUpdate = restUserMockMvc
+                .perform(
+                    put("/configs/{name}", CONFIG_NAME_1)
+                        .param("coalesce", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(first))
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            MvcResult lastUpdate = restUserMockMvc
+                .perform(
+                    put("/configs/{name}", CONFIG_NAME_1)
+                        .param("coalesce", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(last))
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            // Both answered with the last update, applied once
+            restUserMockMvc
+                .perform(asyncDispatch(firstUpdate))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""))
+                .andExpect(jsonPath("$.metadata.limits.cpu.value").value("400m"));
+            restUserMockMvc
+                .perform(asyncDispatch(lastUpdate))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.metadata.limits.cpu.value").value("400m"));
+            assertThat(configService.getStoreVersion()).isEqualTo(version + 1);
+        } finally {
+            configService.deleteConfig(CONFIG_NAME_1);
+            configTombstoneRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional
+    void updateAndDeleteConfigIfMatch() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        String eTag = restUserMockMvc.perform(get("/configs/{name}", CONFIG_NAME_1)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+
+        restUserMockMvc
+            .perform(
+                put("/configs/{name}", CONFIG_NAME_1)
+                    .header(HttpHeaders.IF_MATCH, "\"0\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(configDTO))
+            )
+            .andExpect(status().isPreconditionFailed());
+        String updatedETag = restUserMockMvc
+            .perform(
+                put("/configs/{name}", CONFIG_NAME_1)
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(configDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(updatedETag).isNotEqualTo(eTag);
+
+        restUserMockMvc
+            .perform(delete("/configs/{name}", CONFIG_NAME_1).header(HttpHeaders.IF_MATCH, eTag))
+            .andExpect(status().isPreconditionFailed());
+        restUserMockMvc
+            .perform(delete("/configs/{name}", CONFIG_NAME_1).header(HttpHeaders.IF_MATCH, updatedETag))
+            .andExpect(status().isNoContent());
+        restUserMockMvc
+            .perform(delete("/configs/{name}", CONFIG_NAME_1).header(HttpHeaders.IF_MATCH, updatedETag))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @Transactional
+    void updateConfigWrittenConcurrently() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        em.flush();
+        Config config = configsRepository.findByName(CONFIG_NAME_1).orElseThrow();
+        // Written by another transaction since it was read
+        em
+            .createQuery("update Config c set c.revision = c.revision + 1 where c.name = :name")
+            .setParameter("name", CONFIG_NAME_1)
+            .executeUpdate();
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+
+        assertThatThrownBy(() -> configService.updateConfig(CONFIG_NAME_1, configDTO, List.of(config.getVersion())))
+            .isInstanceOf(ConfigPreconditionFailedException.class);
+    }
+
+    @Test
+    @Transactional
+    void getConfigMetadataSubtree() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+
+        String eTag = restUserMockMvc
+            .perform(get("/configs/{name}/metadata/limits/cpu", CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.enabled").value("false"))
+            .andExpect(jsonPath("$.value").value("300m"))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        restUserMockMvc
+            .perform(get("/configs/{name}/metadata/limits/cpu/value", CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(content().string("\"300m\""));
+        restUserMockMvc
+            .perform(get("/configs/{name}/metadata", CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.monitoring.enabled").value("true"));
+        restUserMockMvc.perform(get("/configs/{name}/metadata/limits/memory", CONFIG_NAME_1)).andExpect(status().isNotFound());
+
+        // A change to another subtree keeps the ETag of this one
+        restUserMockMvc
+            .perform(
+                patch("/configs/{name}", CONFIG_NAME_1)
+                    .contentType("application/merge-patch+json")
+                    .content("{\"monitoring\":{\"enabled\":\"false\"}}")
+            )
+            .andExpect(status().isOk());
+        restUserMockMvc
+            .perform(get("/configs/{name}/metadata/limits/cpu", CONFIG_NAME_1).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+        restUserMockMvc
+            .perform(
+                patch("/configs/{name}", CONFIG_NAME_1)
+                    .contentType("application/merge-patch+json")
+                    .content("{\"limits\":{\"cpu\":{\"value\":\"400m\"}}}")
+            )
+            .andExpect(status().isOk());
+        restUserMockMvc
+            .perform(get("/configs/{name}/metadata/limits/cpu", CONFIG_NAME_1).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.value").value("400m"))
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    @Transactional
+    void patchConfig() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        String eTag = restUserMockMvc.perform(get("/configs/{name}", CONFIG_NAME_1)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        restUserMockMvc
+            .perform(
+                patch("/configs/{name}", CONFIG_NAME_1)
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType("application/merge-patch+json")
+                    .content("{\"limits\":{\"cpu\":{\"value\":\"400m\"}},\"monitoring\":null,\"owner\":\"ops\"}")
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.metadata.limits.cpu.value").value("400m"))
+            .andExpect(jsonPath("$.metadata.limits.cpu.enabled").value("false"))
+            .andExpect(jsonPath("$.metadata.monitoring").doesNotExist())
+            .andExpect(jsonPath("$.metadata.owner").value("ops"));
+        restUserMockMvc
+            .perform(
+                patch("/configs/{name}", CONFIG_NAME_1)
+                    .contentType("application/json-patch+json")
+                    .content(
+                        "[{\"op\":\"test\",\"path\":\"/limits/cpu/value\",\"value\":\"400m\"}," +
+                        "{\"op\":\"move\",\"from\":\"/owner\",\"path\":\"/owners\"}," +
+                        "{\"op\":\"add\",\"path\":\"/regions\",\"value\":[\"eu\"]}," +
+                        "{\"op\":\"add\",\"path\":\"/regions/-\",\"value\":\"us\"}]"
+                    )
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.metadata.owner").doesNotExist())
+            .andExpect(jsonPath("$.metadata.owners").value("ops"))
+            .andExpect(jsonPath("$.metadata.regions", contains("eu", "us")));
+
+        // A failed test applies none of the operations
+        restUserMockMvc
+            .perform(
+                patch("/configs/{name}", CONFIG_NAME_1)
+                    .contentType("application/json-patch+json")
+                    .content(
+                        "[{\"op\":\"remove\",\"path\":\"/owners\"}," +
+                        "{\"op\":\"test\",\"path\":\"/limits/cpu/value\",\"value\":\"300m\"}]"
+                    )
+            )
+            .andExpect(status().isConflict());
+        restUserMockMvc
+            .perform(
+                patch("/configs/{name}", CONFIG_NAME_1)
+                    .contentType("application/json-patch+json")
+                    .content("{\"op\":\"remove\",\"path\":\"/owners\"}")
+            )
+            .andExpect(status().isBadRequest());
+        restUserMockMvc
+            .perform(patch("/configs/{name}", CONFIG_NAME_1).contentType("application/merge-patch+json").content("[]"))
+            .andExpect(status().isBadRequest());
+        restUserMockMvc
+            .perform(patch("/configs/{name}", "missing").contentType("application/merge-patch+json").content("{}"))
+            .andExpect(status().isNotFound());
+        assertThat(configService.getConfigByName(CONFIG_NAME_1).orElseThrow().getMetaData()).containsEntry("owners", "ops");
+    }
+
     @Test
     @Transactional
     void deleteConfig() throws Exception {
@@ -151,6 +503,91 @@ class ConfigsControllerTest {
         assertPersistedConfigs(configs -> assertThat(configs).hasSize(databaseSizeBeforeDelete - 1));
     }
 
+    @Test
+    @Transactional
+    void bulkConfigs() throws Exception {
+        configsRepository.saveAll(configs);
+        configsRepository.flush();
+        long version = configService.getStoreVersion();
+        Map<String, Object> metaData = new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class);
+        List<ConfigBulkOperationDTO> operations = List.of(
+            new ConfigBulkOperationDTO(ConfigBulkOperationDTO.Op.UPSERT, DEFAULT_CONFIG_NAME, metaData),
+            new ConfigBulkOperationDTO(ConfigBulkOperationDTO.Op.UPSERT, CONFIG_NAME_1, metaData),
+            new ConfigBulkOperationDTO(ConfigBulkOperationDTO.Op.DELETE, "data-src2", null),
+            new ConfigBulkOperationDTO(ConfigBulkOperationDTO.Op.DELETE, "missing", null)
+        );
+
+        restUserMockMvc
+            .perform(post("/configs/_bulk").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(operations)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].status").value("CREATED"))
+            .andExpect(jsonPath("$.[0].version").value(version + 1))
+            .andExpect(jsonPath("$.[1].status").value("UPDATED"))
+            .andExpect(jsonPath("$.[1].version").value(version + 2))
+            .andExpect(jsonPath("$.[2].status").value("DELETED"))
+            .andExpect(jsonPath("$.[2].version").value(version + 3))
+            .andExpect(jsonPath("$.[3].status").value("NOT_FOUND"))
+            .andExpect(jsonPath("$.[3].version").doesNotExist());
+
+        assertThat(configService.getStoreVersion()).isEqualTo(version + 3);
+        assertThat(configService.getConfigByName(DEFAULT_CONFIG_NAME)).isPresent();
+        assertThat(configService.getConfigByName(CONFIG_NAME_1).orElseThrow().getVersion()).isEqualTo(version + 2);
+        assertThat(configService.getConfigByName("data-src2")).isEmpty();
+        restUserMockMvc
+            .perform(get("/configs?sinceVersion={version}", version))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.deleted.[*].name").value("data-src2"));
+    }
+
+    @Test
+    @Transactional
+    void updateConfigWithUnchangedMetadata() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        long version = configService.getStoreVersion();
+        long configVersion = configService.getConfigByName(CONFIG_NAME_1).orElseThrow().getVersion();
+        ConfigDTO configDTO = new ConfigDTO();
+        // The stored metadata, with its keys in another order
+        String metaData = "{\"limits\":{\"cpu\":{\"value\":\"300m\",\"enabled\":\"false\"}},\"monitoring\":{\"enabled\":\"true\"}}";
+        configDTO.setMetaData(new ObjectMapper().readValue(metaData, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+
+        restUserMockMvc
+            .perform(
+                put("/configs/{name}", CONFIG_NAME_1)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(configDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + configVersion + "\""));
+        List<ConfigBulkOperationDTO> operations = List.of(
+            new ConfigBulkOperationDTO(ConfigBulkOperationDTO.Op.UPSERT, CONFIG_NAME_1, configDTO.getMetaData())
+        );
+        restUserMockMvc
+            .perform(post("/configs/_bulk").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(operations)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].status").value("UNCHANGED"))
+            .andExpect(jsonPath("$.[0].version").value(configVersion));
+
+        assertThat(configService.getStoreVersion()).isEqualTo(version);
+        restUserMockMvc
+            .perform(get("/configs?sinceVersion={version}", version))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.configs").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void bulkConfigsWithInvalidOperation() throws Exception {
+        List<ConfigBulkOperationDTO> operations = List.of(
+            new ConfigBulkOperationDTO(ConfigBulkOperationDTO.Op.UPSERT, CONFIG_NAME_1, null)
+        );
+
+        restUserMockMvc
+            .perform(post("/configs/_bulk").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(operations)))
+            .andExpect(status().isBadRequest());
+        assertThat(configsRepository.findByName(CONFIG_NAME_1)).isEmpty();
+    }
+
     @Test
     @Transactional
     void getConfigByName() throws Exception {
@@ -163,6 +600,489 @@ class ConfigsControllerTest {
             .andExpect(jsonPath("$.name").value(CONFIG_NAME_1));
     }
 
+    @Test
+    @Transactional
+    void getConfigInBinaryFormats() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+        byte[] smile = restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1).accept("application/x-jackson-smile, application/json;q=0.9"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-jackson-smile"))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        assertThat(smileMapper.readValue(smile, ConfigDTO.class).getMetaData()).containsKey("limits");
+        byte[] cbor = restUserMockMvc
+            .perform(get("/configs").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        assertThat(cborMapper.readValue(cbor, ConfigDTO[].class)).extracting(ConfigDTO::getName).contains(CONFIG_NAME_1);
+        // The JSON payload is cached apart
+        restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1).accept(MediaType.ALL))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.name").value(CONFIG_NAME_1));
+
+        // Request bodies are negotiated too
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+        byte[] updated = restUserMockMvc
+            .perform(
+                put("/configs/{name}", CONFIG_NAME_1)
+                    .contentType("application/x-jackson-smile")
+                    .accept("application/x-jackson-smile")
+                    .content(smileMapper.writeValueAsBytes(configDTO))
+            )
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        assertThat(smileMapper.readValue(updated, ConfigDTO.class).getMetaData()).isEqualTo(configDTO.getMetaData());
+    }
+
+    @Test
+    @Transactional
+    void getConfigsPage() throws Exception {
+        configsRepository.saveAll(configs);
+        configsRepository.flush();
+        restUserMockMvc
+            .perform(get("/configs?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(contains(CONFIG_NAME_1, "data-src2")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=data-src2")));
+        restUserMockMvc
+            .perform(get("/configs?size=2&after=data-src2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(contains("data-src3")))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+        restUserMockMvc.perform(get("/configs?size=0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAllConfigs() throws Exception {
+        // The configs are streamed from another thread, so this test is not transactional
+        configsRepository.saveAll(configs);
+        try {
+            MvcResult stream = restUserMockMvc
+                .perform(get("/configs").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String body = restUserMockMvc
+                .perform(asyncDispatch(stream))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            String[] lines = body.split("\n");
+            assertThat(lines).hasSize(3);
+            assertThat(new ObjectMapper().readValue(lines[0], ConfigDTO.class).getName()).isEqualTo(CONFIG_NAME_1);
+        } finally {
+            configsRepository.deleteAll(configs);
+        }
+    }
+
+    @Test
+    @Transactional
+    void getConfigsByNames() throws Exception {
+        configsRepository.saveAll(configs);
+        configsRepository.flush();
+        restUserMockMvc
+            .perform(get("/configs?names={names}", "data-src2,missing," + CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.configs.['data-src2'].name").value("data-src2"))
+            .andExpect(jsonPath("$.configs.['" + CONFIG_NAME_1 + "'].metadata.limits.cpu.value").value("300m"))
+            .andExpect(jsonPath("$.configs.['data-src3']").doesNotExist())
+            .andExpect(jsonPath("$.missing").value("missing"));
+
+        restUserMockMvc
+            .perform(
+                post("/configs/_mget")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of("data-src3", "missing")))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.configs.['data-src3'].name").value("data-src3"))
+            .andExpect(jsonPath("$.missing").value("missing"));
+    }
+
+    @Test
+    @Transactional
+    void getConfigByNameFromCache() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        double hitsBefore = cacheGets(ConfigService.CONFIG_PAYLOADS_BY_NAME_CACHE, "hit");
+        double offHeapHitsBefore = cacheTierHits(ConfigService.CONFIG_PAYLOADS_BY_NAME_CACHE, "OffHeap");
+
+        restUserMockMvc.perform(get("/configs/{name}", CONFIG_NAME_1)).andExpect(status().isOk());
+        restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.metadata.monitoring.enabled").value("true"));
+        assertThat(cacheGets(ConfigService.CONFIG_PAYLOADS_BY_NAME_CACHE, "hit")).isGreaterThan(hitsBefore);
+        // Payloads are stored off-heap, and copied to the heap tier when read
+        assertThat(cacheTierHits(ConfigService.CONFIG_PAYLOADS_BY_NAME_CACHE, "OffHeap")).isGreaterThan(offHeapHitsBefore);
+
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+        configService.updateConfig(CONFIG_NAME_1, configDTO);
+        restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.metadata.limits.cpu.value").value("400m"));
+    }
+
+    @Test
+    @Transactional
+    void keepNewerCachedSnapshots() throws Exception {
+        Config config = configService.createConfig(new ConfigDTO(configs.get(0)));
+        Cache cache = cacheManager.getCache(ConfigService.CONFIGS_BY_NAME_CACHE);
+        ConfigDTO newer = new ConfigDTO(config);
+        newer.setVersion(config.getVersion() + 1);
+        cache.put(CONFIG_NAME_1, newer);
+
+        // An older row read from the database neither replaces the newer snapshot nor is served from it
+        assertThat(configService.getAllConfig()).extracting(ConfigDTO::getVersion).containsExactly(config.getVersion());
+        assertThat(cache.get(CONFIG_NAME_1, ConfigDTO.class).getVersion()).isEqualTo(config.getVersion() + 1);
+    }
+
+    @Test
+    @Transactional
+    void getConfigsGzipped() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+
+        MvcResult plain = restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andReturn();
+        MvcResult gzipped = restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn();
+        assertThat(gunzip(gzipped.getResponse().getContentAsByteArray())).isEqualTo(plain.getResponse().getContentAsString());
+
+        MvcResult all = restUserMockMvc
+            .perform(get("/configs").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn();
+        List<ConfigDTO> allConfigs = new ObjectMapper()
+            .readValue(gunzip(all.getResponse().getContentAsByteArray()), new TypeReference<List<ConfigDTO>>() {});
+        assertThat(allConfigs).extracting(ConfigDTO::getName).contains(CONFIG_NAME_1, "data-src2", "data-src3");
+
+        configService.deleteConfig("data-src3");
+        restUserMockMvc
+            .perform(get("/configs"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(not(hasItem("data-src3"))));
+    }
+
+    @Test
+    @Transactional
+    void getConfigsNotGzippedBelowMinSize() throws Exception {
+        ApplicationProperties.Configs.Payload payloadProperties = applicationProperties.getConfigs().getPayload();
+        int gzipMinSize = payloadProperties.getGzipMinSize();
+        payloadProperties.setGzipMinSize(Integer.MAX_VALUE);
+        try {
+            configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+            long version = configService.getConfigVersion(CONFIG_NAME_1).orElseThrow();
+
+            // Sent identity-coded, so named as such whatever the client accepts
+            String eTag = restUserMockMvc
+                .perform(get("/configs/{name}", CONFIG_NAME_1).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "\""))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+            restUserMockMvc
+                .perform(
+                    get("/configs/{name}", CONFIG_NAME_1)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                )
+                .andExpect(status().isNotModified());
+            restUserMockMvc
+                .perform(get("/configs").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + configService.getStoreVersion() + "\""));
+        } finally {
+            payloadProperties.setGzipMinSize(gzipMinSize);
+        }
+    }
+
+    @Test
+    void concurrentUpdatesApplyInTurn() throws Exception {
+        String name = "concurrently-updated";
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> configService.createConfig(valueConfig(name, "v1")));
+        try {
+            CountDownLatch updated = new CountDownLatch(1);
+            CompletableFuture<Void> first = CompletableFuture.runAsync(
+                () ->
+                    transactionTemplate.executeWithoutResult(
+                        status -> {
+                            configService.updateConfig(name, valueConfig(name, "v2"));
+                            updated.countDown();
+                            try {
+                                Thread.sleep(300);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    )
+            );
+            assertThat(updated.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Waits for the first update to commit, then applies on top of it instead of failing its optimistic lock
+            transactionTemplate.executeWithoutResult(status -> configService.updateConfig(name, valueConfig(name, "v3")));
+            first.get(5, TimeUnit.SECONDS);
+            assertThat(configService.getConfigByName(name)).map(ConfigDTO::getMetaData).contains(Map.of("value", "v3"));
+        } finally {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    configService.deleteConfig(name);
+                    configTombstoneRepository.deleteById(name);
+                }
+            );
+        }
+    }
+
+    private static ConfigDTO valueConfig(String name, String value) {
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setName(name);
+        configDTO.setMetaData(new HashMap<>(Map.of("value", value)));
+        return configDTO;
+    }
+
+    @Test
+    @Transactional
+    void getConfigsNotModified() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+
+        String eTag = restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        String allETag = restUserMockMvc
+            .perform(get("/configs"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        restUserMockMvc.perform(get("/configs").header(HttpHeaders.IF_NONE_MATCH, allETag)).andExpect(status().isNotModified());
+
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+        configService.updateConfig(CONFIG_NAME_1, configDTO);
+
+        restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+        restUserMockMvc
+            .perform(get("/configs").header(HttpHeaders.IF_NONE_MATCH, allETag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(allETag)));
+        restUserMockMvc.perform(get("/configs/{name}", "data-src2").header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    void getConfigStoreVersion() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        long version = configService.getStoreVersion();
+
+        restUserMockMvc
+            .perform(head("/configs"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "\""))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    @Transactional
+    void getConfigsNotModifiedPerFormatAndCoding() throws Exception {
+        String smileType = "application/x-jackson-smile";
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        long version = configService.getConfigVersion(CONFIG_NAME_1).orElseThrow();
+
+        String jsonETag = restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "\""))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        // Other formats and codings are other bodies, which the client does not hold
+        String smileETag = restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1).accept(smileType).header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "-smile\""))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        restUserMockMvc
+            .perform(
+                get("/configs/{name}", CONFIG_NAME_1)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .header(HttpHeaders.IF_NONE_MATCH, jsonETag)
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "-gzip\""));
+        restUserMockMvc
+            .perform(get("/configs/{name}", CONFIG_NAME_1).accept(smileType).header(HttpHeaders.IF_NONE_MATCH, smileETag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)));
+
+        // The ETags of every format and coding identify the version written
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+        restUserMockMvc
+            .perform(
+                put("/configs/{name}", CONFIG_NAME_1)
+                    .header(HttpHeaders.IF_MATCH, smileETag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(configDTO))
+            )
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    void getConfigChanges() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        long version = configService.getStoreVersion();
+
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+        configService.updateConfig(CONFIG_NAME_1, configDTO);
+        configService.deleteConfig("data-src3");
+
+        restUserMockMvc
+            .perform(get("/configs?sinceVersion={version}", version))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(version + 2))
+            .andExpect(jsonPath("$.full").value(false))
+            .andExpect(jsonPath("$.configs.[*].name").value(CONFIG_NAME_1))
+            .andExpect(jsonPath("$.configs.[0].metadata.limits.cpu.value").value("400m"))
+            .andExpect(jsonPath("$.deleted.[*].name").value("data-src3"));
+        restUserMockMvc
+            .perform(get("/configs?sinceVersion={version}", version + 2))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.configs").isEmpty())
+            .andExpect(jsonPath("$.deleted").isEmpty());
+
+        configService.createConfig(new ConfigDTO(configs.get(2)));
+        restUserMockMvc
+            .perform(get("/configs?sinceVersion={version}", version))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.configs.[*].name").value(hasItem("data-src3")))
+            .andExpect(jsonPath("$.deleted").isEmpty());
+    }
+
+    @Test
+    void watchConfigs() throws Exception {
+        // Watchers are only notified of committed changes, so this test is not transactional
+        configService.createConfig(new ConfigDTO(configs.get(0)));
+        try {
+            long version = configService.getConfigVersion(CONFIG_NAME_1).orElseThrow();
+            MvcResult configWatch = restUserMockMvc
+                .perform(get("/configs/{name}/watch?version={version}", CONFIG_NAME_1, version))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            MvcResult storeWatch = restUserMockMvc
+                .perform(get("/configs/watch?version={version}", configService.getStoreVersion()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            MvcResult otherWatch = restUserMockMvc
+                .perform(get("/configs/{name}/watch?version=0", "data-src2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            ConfigDTO configDTO = new ConfigDTO();
+            configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+            configDTO.setName(CONFIG_NAME_1);
+            configService.updateConfig(CONFIG_NAME_1, configDTO);
+
+            restUserMockMvc
+                .perform(asyncDispatch(configWatch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.metadata.limits.cpu.value").value("400m"));
+            restUserMockMvc
+                .perform(asyncDispatch(storeWatch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.configs.[*].name").value(CONFIG_NAME_1));
+            // Watchers of other configs are not woken up
+            assertThatThrownBy(() -> otherWatch.getAsyncResult(0)).isInstanceOf(IllegalStateException.class);
+
+            // A watch that is already stale completes straight away
+            MvcResult staleWatch = restUserMockMvc
+                .perform(get("/configs/{name}/watch?version={version}", CONFIG_NAME_1, version))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restUserMockMvc.perform(asyncDispatch(staleWatch)).andExpect(status().isOk());
+        } finally {
+            configService.deleteConfig(CONFIG_NAME_1);
+            configTombstoneRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void streamConfigEvents() throws Exception {
+        // Events are only pushed for committed changes, so this test is not transactional
+        long version = configService.getStoreVersion();
+        MvcResult events = restUserMockMvc
+            .perform(get("/configs/events").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        try {
+            configService.createConfig(new ConfigDTO(configs.get(0)));
+            assertThat(awaitEvent(events, "event:created")).contains("id:" + (version + 1), "\"name\":\"" + CONFIG_NAME_1 + "\"");
+            ConfigDTO configDTO = new ConfigDTO();
+            configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+            configDTO.setName(CONFIG_NAME_1);
+            configService.updateConfig(CONFIG_NAME_1, configDTO);
+            assertThat(awaitEvent(events, "event:updated")).contains("\"value\":\"400m\"");
+            configService.deleteConfig(CONFIG_NAME_1);
+            assertThat(awaitEvent(events, "event:deleted")).contains("id:" + (version + 3));
+
+            // Resuming replays the missed changes, the ones of a same config coalesced into the latest
+            MvcResult resumed = restUserMockMvc
+                .perform(get("/configs/events").header("Last-Event-ID", version).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            assertThat(awaitEvent(resumed, "event:deleted")).doesNotContain("event:created", "event:updated");
+            resumed.getRequest().getAsyncContext().complete();
+        } finally {
+            events.getRequest().getAsyncContext().complete();
+            configTombstoneRepository.deleteAll();
+        }
+    }
+
     @Test
     @Transactional(readOnly = true)
     void searchConfigs() throws Exception {
@@ -182,6 +1102,142 @@ class ConfigsControllerTest {
         assertThat(configs).hasSize(2);
     }
 
+    @Test
+    @Transactional
+    void searchConfigsWithQuery() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+
+        restUserMockMvc
+            .perform(get("/search").param("q", "monitoring.enabled = true AND limits.cpu.value IN (200m, 300m)"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(contains(CONFIG_NAME_1)));
+        restUserMockMvc
+            .perform(get("/search").param("q", "limits.cpu.value = 300m OR (monitoring.enabled = true AND limits.cpu.enabled EXISTS)"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(contains(CONFIG_NAME_1, "data-src2", "data-src3")));
+        restUserMockMvc.perform(get("/search").param("q", "monitoring.enabled =")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void searchConfigsAfterUpdateAndDelete() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        // Cached results are dropped by the changes below
+        restUserMockMvc.perform(get("/search?" + DEFAULT_SEARCH_STRING)).andExpect(jsonPath("$").value(hasSize(2)));
+        restUserMockMvc.perform(get("/search?metadata.limits.cpu.value=400m")).andExpect(jsonPath("$").isEmpty());
+        ConfigDTO configDTO = new ConfigDTO();
+        configDTO.setMetaData(new ObjectMapper().readValue(DEFAULT_CONFIG_UPDATE_METADATA, HashMap.class));
+        configDTO.setName(CONFIG_NAME_1);
+        configService.updateConfig(CONFIG_NAME_1, configDTO);
+        configService.deleteConfig("data-src3");
+
+        restUserMockMvc
+            .perform(get("/search?" + DEFAULT_SEARCH_STRING))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restUserMockMvc
+            .perform(get("/search?metadata.limits.cpu.value=400m"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(CONFIG_NAME_1));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.CACHE_PEER)
+    void refreshConfigsChangedByPeer() throws Exception {
+        configs.forEach(c -> configService.createConfig(new ConfigDTO(c)));
+        restUserMockMvc.perform(get("/configs/{name}", CONFIG_NAME_1)).andExpect(jsonPath("$.metadata.limits.cpu.value").value("300m"));
+        // Changed by another instance, which only wrote to the database
+        Config config = configsRepository.findByName(CONFIG_NAME_1).orElseThrow();
+        config.setMetaData(utf8(DEFAULT_CONFIG_UPDATE_METADATA));
+        configsRepository.saveAndFlush(config);
+        restUserMockMvc.perform(get("/configs/{name}", CONFIG_NAME_1)).andExpect(jsonPath("$.metadata.limits.cpu.value").value("300m"));
+
+        CacheInvalidationDTO invalidation = new CacheInvalidationDTO();
+        invalidation.getConfigNames().add(CONFIG_NAME_1);
+        restUserMockMvc
+            .perform(
+                post("/api/admin/cache-invalidations")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(invalidation))
+            )
+            .andExpect(status().isNoContent());
+
+        restUserMockMvc.perform(get("/configs/{name}", CONFIG_NAME_1)).andExpect(jsonPath("$.metadata.limits.cpu.value").value("400m"));
+        restUserMockMvc
+            .perform(get("/search?metadata.limits.cpu.value=400m"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(CONFIG_NAME_1));
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void cacheInvalidationsOnlyAcceptPeers() throws Exception {
+        restUserMockMvc
+            .perform(
+                post("/api/admin/cache-invalidations")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CacheInvalidationDTO()))
+            )
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void refreshConfigsWakesWatchers() throws Exception {
+        // Watchers are only notified of committed changes, so this test is not transactional
+        configService.createConfig(new ConfigDTO(configs.get(0)));
+        try {
+            long version = configService.getConfigVersion(CONFIG_NAME_1).orElseThrow();
+            CompletableFuture<Long> watch = configWatchService.watchConfig(CONFIG_NAME_1, version);
+            // Changed by another instance, which only wrote to the database
+            Config config = configsRepository.findByName(CONFIG_NAME_1).orElseThrow();
+            config.setMetaData(utf8(DEFAULT_CONFIG_UPDATE_METADATA));
+            config.setVersion(version + 1);
+            configsRepository.saveAndFlush(config);
+            assertThat(watch).isNotDone();
+
+            configService.refreshConfigs(Set.of(CONFIG_NAME_1));
+
+            assertThat(watch.get(5, TimeUnit.SECONDS)).isEqualTo(version + 1);
+        } finally {
+            configService.deleteConfig(CONFIG_NAME_1);
+            configTombstoneRepository.deleteAll();
+        }
+    }
+
+    /**
+     * Waits for an event to be written in full, i.e. up to the blank line ending it.
+     */
+    private static String awaitEvent(MvcResult result, String event) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(event) || content.indexOf("\n\n", content.indexOf(event)) < 0) {
+            assertThat(System.currentTimeMillis()).as("time waiting for %s", event).isLessThan(deadline);
+            Thread.sleep(50);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    private static String gunzip(byte[] body) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private double cacheGets(String cache, String result) {
+        return meterRegistry
+            .get("cache.gets")
+            .tag("cache", cache)
+            .tag("result", result)
+            .functionCounter()
+            .count();
+    }
+
+    private double cacheTierHits(String cache, String tier) {
+        return meterRegistry.get("cache.tier.hits").tag("cache", cache).tag("tier", tier).functionCounter().count();
+    }
+
     private void assertPersistedConfigs(Consumer<List<Config>> configAssertion) {
         configAssertion.accept(configsRepository.findAll());
     }